@@ -0,0 +1,99 @@
+package com.killrvideo.config;
+
+import com.killrvideo.service.FakeEmbeddingModel;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.OnnxEmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.PoolingMode;
+import dev.langchain4j.model.huggingface.HuggingFaceEmbeddingModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the single embedding model shared by video submission and vector search,
+ * selected with {@code killrvideo.embedding.provider}. Whatever the provider, vectors must
+ * have the dimension of the videos collection, or stored and query vectors cannot be compared.
+ */
+@Configuration
+public class EmbeddingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingConfig.class);
+
+    // Hugging Face's granite-embedding-30m-english model was used to generate the embeddings for the videos.
+    @Bean
+    @ConditionalOnProperty(name = "killrvideo.embedding.provider", havingValue = "huggingface", matchIfMissing = true)
+    public EmbeddingModel huggingFaceEmbeddingModel(
+            @Value("${killrvideo.embedding.huggingface.api-key:}") String apiKey,
+            @Value("${killrvideo.embedding.huggingface.base-url:https://router.huggingface.co/hf-inference/}") String baseUrl,
+            @Value("${killrvideo.embedding.huggingface.model-id:ibm-granite/granite-embedding-30m-english}") String modelId) {
+        logger.info("Using Hugging Face embedding model: {}", modelId);
+        return HuggingFaceEmbeddingModel.builder()
+                .accessToken(apiKey)
+                .baseUrl(baseUrl)
+                .modelId(modelId)
+                .waitForModel(true)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "killrvideo.embedding.provider", havingValue = "fake")
+    public EmbeddingModel fakeEmbeddingModel(
+            @Value("${killrvideo.embedding.dimension:384}") int dimension) {
+        logger.warn("Using fake embedding model; vectors carry no meaning");
+        return new FakeEmbeddingModel(dimension);
+    }
+
+    /**
+     * Runs a locally stored sentence-embedding model in-process on CPU. The ONNX Runtime
+     * session and tokenizer are shared and thread-safe; inference for a batch is spread
+     * over a fixed pool of threads, so concurrency stays bounded by the pool size.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "killrvideo.embedding.provider", havingValue = "onnx")
+    public EmbeddingModel onnxEmbeddingModel(
+            @Value("${killrvideo.embedding.onnx.model-path}") String modelPath,
+            @Value("${killrvideo.embedding.onnx.tokenizer-path}") String tokenizerPath,
+            @Value("${killrvideo.embedding.onnx.pooling-mode:CLS}") PoolingMode poolingMode,
+            @Value("${killrvideo.embedding.dimension:384}") int dimension,
+            ExecutorService onnxInferenceExecutor) {
+        if (!Files.isReadable(Path.of(modelPath)) || !Files.isReadable(Path.of(tokenizerPath))) {
+            throw new IllegalStateException("ONNX embedding model or tokenizer not readable: "
+                + modelPath + ", " + tokenizerPath);
+        }
+
+        OnnxEmbeddingModel model = new OnnxEmbeddingModel(
+            Path.of(modelPath), Path.of(tokenizerPath), poolingMode, onnxInferenceExecutor);
+
+        // fail at startup rather than writing vectors the collection cannot search
+        int modelDimension = model.dimension();
+        if (modelDimension != dimension) {
+            throw new IllegalStateException("ONNX embedding model produces " + modelDimension
+                + "-dimensional vectors but the collection expects " + dimension);
+        }
+        logger.info("Using in-process ONNX embedding model: {}, dimension: {}", modelPath, modelDimension);
+        return model;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "killrvideo.embedding.provider", havingValue = "onnx")
+    public ExecutorService onnxInferenceExecutor(
+            @Value("${killrvideo.embedding.onnx.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "onnx-embedding-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
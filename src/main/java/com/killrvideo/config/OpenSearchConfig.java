@@ -0,0 +1,93 @@
+package com.killrvideo.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.Timeout;
+
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.transport.OpenSearchTransport;
+import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Non-blocking OpenSearch client with an explicitly sized connection pool and timeouts.
+ * The beans exist only when {@code killrvideo.opensearch.host} is set; without them search
+ * calls fail fast as unavailable.
+ */
+@Configuration
+public class OpenSearchConfig {
+    private static final Logger logger = LoggerFactory.getLogger(OpenSearchConfig.class);
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("!'${killrvideo.opensearch.host:}'.isEmpty()")
+    public OpenSearchTransport openSearchTransport(OpenSearchProperties properties) throws Exception {
+        HttpHost host = new HttpHost(properties.getScheme(), properties.getHost(), properties.getPort());
+        OpenSearchProperties.Timeouts timeouts = properties.getTimeouts();
+        OpenSearchProperties.Pool pool = properties.getPool();
+
+        PoolingAsyncClientConnectionManagerBuilder connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(pool.getMaxConnections())
+            .setMaxConnPerRoute(pool.getMaxConnectionsPerRoute())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(timeouts.getConnectMs()))
+                .setSocketTimeout(Timeout.ofMilliseconds(timeouts.getSocketMs()))
+                .build());
+        if (properties.isTrustAllCertificates()) {
+            SSLContext sslContext = SSLContextBuilder.create().loadTrustMaterial(null, (chains, authType) -> true).build();
+            connectionManager.setTlsStrategy(ClientTlsStrategyBuilder.create()
+                .setSslContext(sslContext)
+                .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                .build());
+        }
+
+        BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        if (StringUtils.hasText(properties.getUsername())) {
+            String password = properties.getPassword() == null ? "" : properties.getPassword();
+            credentialsProvider.setCredentials(new AuthScope(host),
+                new UsernamePasswordCredentials(properties.getUsername(), password.toCharArray()));
+        }
+
+        // indexed videos carry ISO-8601 dates, which the index maps without a custom format
+        ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .findAndRegisterModules();
+
+        logger.info("Connecting to OpenSearch at {} with up to {} connections", host, pool.getMaxConnections());
+        return ApacheHttpClient5TransportBuilder.builder(host)
+            .setMapper(new JacksonJsonpMapper(objectMapper))
+            .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+                .setDefaultCredentialsProvider(credentialsProvider)
+                .setConnectionManager(connectionManager.build()))
+            .setRequestConfigCallback(requestConfig -> requestConfig
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(timeouts.getConnectionRequestMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(timeouts.getSocketMs())))
+            .build();
+    }
+
+    @Bean
+    @ConditionalOnExpression("!'${killrvideo.opensearch.host:}'.isEmpty()")
+    public OpenSearchAsyncClient openSearchAsyncClient(OpenSearchTransport openSearchTransport) {
+        return new OpenSearchAsyncClient(openSearchTransport);
+    }
+}
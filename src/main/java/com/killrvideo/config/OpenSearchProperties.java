@@ -0,0 +1,262 @@
+package com.killrvideo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * OpenSearch connection, pool, timeout and circuit breaker settings, bound from
+ * {@code killrvideo.opensearch} in application.yml.
+ */
+@Component
+@ConfigurationProperties(prefix = "killrvideo.opensearch")
+public class OpenSearchProperties {
+    // search is disabled when no host is configured
+    private String host;
+    private int port = 9200;
+    private String scheme = "https";
+    private String username;
+    private String password;
+    private String index = "videos";
+
+    // local clusters use self-signed certificates; turn off against a properly signed cluster
+    private boolean trustAllCertificates = true;
+
+    private Pool pool = new Pool();
+    private Timeouts timeouts = new Timeouts();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Pagination pagination = new Pagination();
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public void setScheme(String scheme) {
+        this.scheme = scheme;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public boolean isTrustAllCertificates() {
+        return trustAllCertificates;
+    }
+
+    public void setTrustAllCertificates(boolean trustAllCertificates) {
+        this.trustAllCertificates = trustAllCertificates;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Timeouts getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(Timeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
+    public static class Pool {
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 50;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+    }
+
+    public static class Timeouts {
+        private long connectMs = 1000;
+
+        // maximum inactivity between packets of a response
+        private long socketMs = 5000;
+
+        // maximum wait for a pooled connection when all are busy
+        private long connectionRequestMs = 500;
+
+        // overall deadline for one call, including queueing and retries inside the client
+        private long requestMs = 3000;
+
+        public long getConnectMs() {
+            return connectMs;
+        }
+
+        public void setConnectMs(long connectMs) {
+            this.connectMs = connectMs;
+        }
+
+        public long getSocketMs() {
+            return socketMs;
+        }
+
+        public void setSocketMs(long socketMs) {
+            this.socketMs = socketMs;
+        }
+
+        public long getConnectionRequestMs() {
+            return connectionRequestMs;
+        }
+
+        public void setConnectionRequestMs(long connectionRequestMs) {
+            this.connectionRequestMs = connectionRequestMs;
+        }
+
+        public long getRequestMs() {
+            return requestMs;
+        }
+
+        public void setRequestMs(long requestMs) {
+            this.requestMs = requestMs;
+        }
+    }
+
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+
+        // consecutive failed calls that open the circuit
+        private int failureThreshold = 5;
+
+        // how long calls fail fast before a single trial call is let through
+        private long openMs = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public long getOpenMs() {
+            return openMs;
+        }
+
+        public void setOpenMs(long openMs) {
+            this.openMs = openMs;
+        }
+    }
+
+    public static class Pagination {
+        // idle time after which OpenSearch closes a point in time; each page extends it
+        private long keepAliveSeconds = 60;
+
+        // oldest point in time a cursor may use, however often it is extended
+        private long maxLifetimeSeconds = 600;
+
+        // points in time this instance keeps open at once; beyond it pages are read without one
+        private int maxOpenPits = 100;
+
+        // unique keyword field that orders hits with equal scores
+        private String tiebreakerField = "videoid.keyword";
+
+        public long getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(long keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public long getMaxLifetimeSeconds() {
+            return maxLifetimeSeconds;
+        }
+
+        public void setMaxLifetimeSeconds(long maxLifetimeSeconds) {
+            this.maxLifetimeSeconds = maxLifetimeSeconds;
+        }
+
+        public int getMaxOpenPits() {
+            return maxOpenPits;
+        }
+
+        public void setMaxOpenPits(int maxOpenPits) {
+            this.maxOpenPits = maxOpenPits;
+        }
+
+        public String getTiebreakerField() {
+            return tiebreakerField;
+        }
+
+        public void setTiebreakerField(String tiebreakerField) {
+            this.tiebreakerField = tiebreakerField;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.killrvideo.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit policies, bound from {@code killrvideo.rate-limit} in application.yml.
+ * Validated at binding, so a policy the limiter cannot compute with fails startup.
+ */
+@Component
+@Validated
+@ConfigurationProperties(prefix = "killrvideo.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // upper bound on tracked clients; the least recently used are evicted first
+    @Positive
+    private long maxKeys = 100000;
+
+    // buckets untouched for this long are dropped, which is equivalent to a full bucket
+    @Positive
+    private long idleSeconds = 600;
+
+    // only enable behind a proxy that sets X-Forwarded-For, or clients can pick their own key
+    private boolean trustForwardedFor = false;
+
+    @Valid
+    private List<Policy> policies = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public long getIdleSeconds() {
+        return idleSeconds;
+    }
+
+    public void setIdleSeconds(long idleSeconds) {
+        this.idleSeconds = idleSeconds;
+    }
+
+    public boolean isTrustForwardedFor() {
+        return trustForwardedFor;
+    }
+
+    public void setTrustForwardedFor(boolean trustForwardedFor) {
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<Policy> policies) {
+        this.policies = policies;
+    }
+
+    /**
+     * A token bucket applied to requests matching a method and path pattern.
+     * Each client may burst up to {@code capacity} requests, refilled at
+     * {@code refillPerSecond} tokens per second.
+     */
+    public static class Policy {
+        @NotBlank
+        private String name;
+        private String method;
+        @NotBlank
+        private String path;
+        @Positive
+        private int capacity;
+        // the interval between tokens is computed in whole nanoseconds
+        @Positive
+        @DecimalMax("1000000000")
+        private double refillPerSecond;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.killrvideo.config;
 
 import com.killrvideo.security.AuthTokenFilter;
+import com.killrvideo.security.BoundedPasswordEncoder;
+import com.killrvideo.security.RateLimitFilter;
 import com.killrvideo.security.UserDetailsServiceImpl;
 import com.killrvideo.security.AuthEntryPointJwt;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -14,7 +19,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -34,16 +38,35 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Value("${killrvideo.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${killrvideo.security.bcrypt.threads:4}")
+    private int bcryptThreads;
+
+    @Value("${killrvideo.security.bcrypt.queue-capacity:64}")
+    private int bcryptQueueCapacity;
+
+    @Value("${killrvideo.security.bcrypt.timeout-ms:5000}")
+    private long bcryptTimeoutMs;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter();
+    }
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // rehash on login when the configured BCrypt cost changes
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -54,10 +77,34 @@ public class WebSecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // hashing runs on its own bounded pool so a login burst cannot exhaust request threads
+        return new BoundedPasswordEncoder(bcryptStrength, bcryptThreads, bcryptQueueCapacity, bcryptTimeoutMs);
+    }
+
+    /**
+     * Actuator endpoints are served under the context path, where the API chain's matcher
+     * does not apply, so they get their own chain: health and info are public, every other
+     * endpoint requires an ADMIN token.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers(EndpointRequest.to("health", "info")).permitAll()
+                .anyRequest().hasAuthority("ADMIN"))
+            .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+
+        logger.info("Actuator security configured: health and info permitted, all other endpoints require ADMIN");
+        return http.build();
     }
 
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         logger.info("Configuring security filter chain...");
 
@@ -85,7 +132,9 @@ public class WebSecurityConfig {
                 logger.info("Authorization rules configured: /api/v1/auth/**, /api/v1/health, and Swagger UI endpoints permitted, all others require authentication");
             })
             .authenticationProvider(authenticationProvider())
-            .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class)
+            // after authentication so limits apply per user where possible
+            .addFilterAfter(rateLimitFilter(), AuthTokenFilter.class);
 
         logger.info("Security filter chain configuration completed");
         return http.build();
@@ -7,6 +7,7 @@ import com.killrvideo.dto.SignupRequest;
 import com.killrvideo.dto.UpdateUserRequest;
 import com.killrvideo.dto.User;
 import com.killrvideo.security.JwtUtils;
+import com.killrvideo.security.PasswordHashingUnavailableException;
 import com.killrvideo.security.UserDetailsImpl;
 import com.killrvideo.dto.UserResponse;
 
@@ -14,6 +15,8 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -48,8 +51,6 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<JwtResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         logger.info("Processing signin request for user: {}", loginRequest.getEmail());
-        
-        System.out.println("Login request: " + loginRequest.getEmail() + " and " + loginRequest.getPassword());
 
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword());
         Authentication authentication = authenticationManager.authenticate(authToken);
@@ -69,7 +70,10 @@ public class AuthController {
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         logger.info("Processing signup request for user: {}", signUpRequest.getEmail());
 
-        if (userDao.existsByEmail(signUpRequest.getEmail())) {
+        // claiming the email first replaces a read-then-insert uniqueness check; a guard
+        // left behind by a crash before the save is reclaimed after the reservation timeout
+        String userId = UUID.randomUUID().toString();
+        if (!userDao.reserveEmail(signUpRequest.getEmail(), userId)) {
             logger.warn("Email is already in use: {}", signUpRequest.getEmail());
             return ResponseEntity
                     .badRequest()
@@ -77,30 +81,33 @@ public class AuthController {
         }
 
         // Create new user's account
-        User user = new User(
-                UUID.randomUUID().toString(),
-                signUpRequest.getFirstName(),
-                signUpRequest.getLastName(),
-                signUpRequest.getEmail(),
-                encoder.encode(signUpRequest.getPassword()),
-                Instant.now(),
-                "USER"
-        );
-
-        userDao.save(user);
+        User user;
+        try {
+            user = new User(
+                    userId,
+                    signUpRequest.getFirstName(),
+                    signUpRequest.getLastName(),
+                    signUpRequest.getEmail(),
+                    encoder.encode(signUpRequest.getPassword()),
+                    Instant.now(),
+                    "USER"
+            );
+
+            userDao.save(user);
+        } catch (RuntimeException e) {
+            userDao.releaseEmail(signUpRequest.getEmail(), userId);
+            throw e;
+        }
         logger.info("User registered successfully: {}", user.getEmail());
 
-        //return ResponseEntity.ok("User registered successfully!");
-        // log-in new user
-        UsernamePasswordAuthenticationToken authToken =
-        		new UsernamePasswordAuthenticationToken(user.getEmail(), signUpRequest.getPassword());
-        Authentication authentication = authenticationManager.authenticate(authToken);
+        // log-in new user; the password was just hashed, so there is nothing to re-verify
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        Authentication authentication =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
 
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-
         JwtResponse response = new JwtResponse(jwt, userDetails.getUserId(), userDetails.getUsername());
         logger.info("Token created.");
         return ResponseEntity.ok(response);
@@ -166,25 +173,39 @@ public class AuthController {
         if (updateRequest.getLastName() != null) {
             user.setLastName(updateRequest.getLastName());
         }
+        String previousEmail = user.getEmail();
+        String reservedEmail = null;
         if (updateRequest.getEmail() != null && !updateRequest.getEmail().equals(user.getEmail())) {
-            // Check if the new email is already in use
-            if (userDao.existsByEmail(updateRequest.getEmail())) {
-                logger.warn("Email is already in use: {}", updateRequest.getEmail());
-                return ResponseEntity
-                        .badRequest()
-                        .body("Error: Email is already in use!");
+            // a change of case only keeps the email the user already holds
+            if (!updateRequest.getEmail().equalsIgnoreCase(previousEmail)) {
+                if (!userDao.reserveEmail(updateRequest.getEmail(), userId)) {
+                    logger.warn("Email is already in use: {}", updateRequest.getEmail());
+                    return ResponseEntity
+                            .badRequest()
+                            .body("Error: Email is already in use!");
+                }
+                reservedEmail = updateRequest.getEmail();
             }
             user.setEmail(updateRequest.getEmail());
         }
-        if (updateRequest.getPassword() != null) {
-            user.setHashedPassword(encoder.encode(updateRequest.getPassword()));
-        }
 
         try {
+            if (updateRequest.getPassword() != null) {
+                user.setHashedPassword(encoder.encode(updateRequest.getPassword()));
+            }
             userDao.update(user);
+            if (reservedEmail != null) {
+                userDao.releaseEmail(previousEmail, userId);
+            }
             logger.info("User updated successfully: {}", user.getEmail());
             return ResponseEntity.ok("User updated successfully!");
         } catch (Exception e) {
+            if (reservedEmail != null) {
+                userDao.releaseEmail(reservedEmail, userId);
+            }
+            if (e instanceof PasswordHashingUnavailableException unavailable) {
+                throw unavailable;
+            }
             logger.error("Error updating user: {}", e.getMessage());
             return ResponseEntity
                     .badRequest()
@@ -215,4 +236,12 @@ public class AuthController {
             return ResponseEntity.notFound().build();
         }
     }
-} 
\ No newline at end of file
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<String> handlePasswordHashingUnavailable(PasswordHashingUnavailableException e) {
+        logger.warn("Shedding auth request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Error: Too many sign-in requests, please retry shortly");
+    }
+}
@@ -1,12 +1,20 @@
 package com.killrvideo.controller;
 
+import com.killrvideo.dao.CommentCursor;
+import com.killrvideo.dao.CommentDao;
 import com.killrvideo.dao.ModerationDao;
 import com.killrvideo.dao.UserDao;
+import com.killrvideo.dao.VideoDao;
+import com.killrvideo.dto.Comment;
+import com.killrvideo.dto.CommentResponse;
+import com.killrvideo.dto.CommentsDataResponse;
+import com.killrvideo.dto.Pagination;
 import com.killrvideo.dto.User;
 import com.killrvideo.dto.Flag;
 import com.killrvideo.dto.FlagCreateRequest;
 import com.killrvideo.dto.FlagUpdateRequest;
 import com.killrvideo.dto.UpdateUserRequest;
+import com.killrvideo.service.UserSearchIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,9 +27,14 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -34,6 +47,15 @@ public class ModerationController {
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private CommentDao commentDao;
+
+    @Autowired
+    private VideoDao videoDao;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     /**
      * GET /moderation/flags?status=...&limit=...
      */
@@ -134,6 +156,72 @@ public class ModerationController {
         }
     }
 
+    /**
+     * GET /moderation/users/{userId}/comments?pageSize=...&pageState=...
+     * A user's comments, newest first, with the title of each commented video.
+     * Pages are keyset-based: pass back pagination.nextPageState to get the next page.
+     */
+    @GetMapping("/moderation/users/{userId}/comments")
+    public ResponseEntity<?> getUserComments(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String pageState) {
+        if (pageSize <= 0 || pageSize > 100) pageSize = 20;
+
+        // the page number travels in the cursor
+        int page = 1;
+        CommentCursor after = null;
+        if (pageState != null && !pageState.isEmpty()) {
+            try {
+                after = CommentCursor.decode(pageState);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid comment history page state for user {}: {}", userId, e.getMessage());
+                return ResponseEntity.badRequest().body("Error: Invalid pageState");
+            }
+            page = after.getPage() + 1;
+        }
+
+        try {
+            // fetch one extra comment to find out whether there is a next page
+            // comments are never older than their author, which bounds the history scan
+            Instant since = userDao.findByUserId(userId)
+                    .map(User::getCreatedAt)
+                    .orElse(Instant.EPOCH);
+            List<Comment> comments = commentDao.findByUserId(userId, after, pageSize + 1, since);
+            boolean hasMore = comments.size() > pageSize;
+            if (hasMore) {
+                comments = comments.subList(0, pageSize);
+            }
+
+            Set<String> videoIds = new HashSet<>();
+            for (Comment comment : comments) {
+                videoIds.add(comment.getVideoId());
+            }
+            Map<String, String> videoTitles = videoIds.isEmpty()
+                    ? Collections.emptyMap()
+                    : videoDao.findNamesByVideoIds(videoIds);
+
+            List<CommentResponse> history = new ArrayList<>();
+            for (Comment comment : comments) {
+                CommentResponse commentResp = CommentResponse.fromComment(comment);
+                commentResp.setVideoTitle(videoTitles.get(comment.getVideoId()));
+                history.add(commentResp);
+            }
+
+            String nextPageState = null;
+            if (hasMore) {
+                Comment last = comments.get(comments.size() - 1);
+                nextPageState = new CommentCursor(page, last.getTimestamp(), last.getCommentId()).encode();
+            }
+            Pagination pagination = Pagination.ofKeysetPage(page, pageSize, history.size(), nextPageState);
+
+            return ResponseEntity.ok(new CommentsDataResponse(history, pagination));
+        } catch (Exception e) {
+            logger.error("Error fetching comment history for {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PostMapping("moderation/users/{userId}/assign-moderator")
     public ResponseEntity<?> assignModerator(@PathVariable String userId, @RequestBody UpdateUserRequest assignRequest) {
         try {
@@ -160,7 +248,18 @@ public class ModerationController {
             Map<String, String[]> params = request.getParameterMap();
             String query = params.get("query")[0];
 
-            List<User> users = userDao.searchUsers(query,limit);
+            if (!userSearchIndex.isReady()) {
+                // exact matches only until the index has been built
+                List<User> users = userDao.searchUsers(query,limit);
+                return ResponseEntity.ok(users);
+            }
+
+            List<String> userIds = userSearchIndex.search(query, limit);
+            Map<String, User> found = userDao.findByUserIds(userIds);
+            List<User> users = userIds.stream()
+                    .map(found::get)
+                    .filter(Objects::nonNull)
+                    .toList();
             return ResponseEntity.ok(users);
         } catch (Exception e) {
             logger.error("Error searching users: {}", e.getMessage());
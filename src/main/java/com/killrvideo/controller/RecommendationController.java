@@ -95,6 +95,7 @@ public class RecommendationController {
     		videoResp.setVector(recVideo.getVector());
     		videoResp.setVideoId(recVideo.getVideoid());
     		videoResp.setYoutubeVideoId(recVideo.getYoutubeId());
+    		videoResp.setCommentCount(recVideo.getCommentCount());
     		
     		// add video response to recommended response
     		recResponse.setVideo(videoResp);
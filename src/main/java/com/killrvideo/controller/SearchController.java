@@ -1,13 +1,18 @@
 package com.killrvideo.controller;
 
-import com.killrvideo.dto.Rating;
-import com.killrvideo.dao.RatingDao;
+import com.killrvideo.dao.SearchCursor;
+import com.killrvideo.dao.SearchUnavailableException;
+import com.killrvideo.dto.Pagination;
 import com.killrvideo.dto.SearchVideosResponse;
 import com.killrvideo.dto.TagSuggestion;
 import com.killrvideo.dto.Video;
 import com.killrvideo.dao.VideoDao;
+import com.killrvideo.dto.VideoPlaybackStats;
 import com.killrvideo.dto.VideoResponse;
 import com.killrvideo.dao.VideoSearchDao;
+import com.killrvideo.service.EmbeddingService;
+import com.killrvideo.service.HybridSearchService;
+import com.killrvideo.service.QueryEmbeddingCache;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -15,12 +20,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import dev.langchain4j.model.embedding.EmbeddingModel;
-import dev.langchain4j.model.huggingface.HuggingFaceEmbeddingModel;
-
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,25 +34,25 @@ import java.util.Optional;
 @RequestMapping("/search")
 public class SearchController {
     private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
-
-    // Hugging Face's All-Mini-LmL6-V2 embedding model was used to generate the embeddings for the videos.
-    // This model is a small, fast, and accurate embedding model that is suitable for our use case.
-    private static EmbeddingModel embeddingModel = HuggingFaceEmbeddingModel.builder()
-			.accessToken(System.getenv("HF_API_KEY"))
-			.baseUrl("https://router.huggingface.co/hf-inference/")
-			.modelId("ibm-granite/granite-embedding-30m-english")
-			.waitForModel(true)
-			.build();
+    private static final int MAX_LIMIT = 100;
+    // seconds a client should wait before retrying while search is unavailable
+    private static final String RETRY_AFTER_SECONDS = "5";
 
     @Autowired
     private VideoDao videoDao;
 
-    @Autowired
-    private RatingDao ratingDao;
-    
     @Autowired
     private VideoSearchDao searchDao;
 
+    @Autowired
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
     /**
      * Get tag suggestions based on a query
      */
@@ -88,6 +92,8 @@ public class SearchController {
 
     /**
      * Search videos by query string
+     * /search/videos?query=${query}&limit=${limit}&pageState=${pageState}
+     * Pass back pagination.nextPageState to get the next page of the same query.
      */
     @GetMapping("/videos")
     public ResponseEntity<?> searchVideosByText(
@@ -100,66 +106,117 @@ public class SearchController {
         if (params.containsKey("limit")) {
             limit = Integer.parseInt(params.get("limit")[0]);
         }
+        if (limit <= 0 || limit > 100) {
+            limit = 20;
+        }
 
         if (query == null || query.trim().isEmpty()) {
             logger.warn("Empty query string provided for video search");
             return ResponseEntity.badRequest().body(List.of());
         }
+
+        // pull one page of video search results from OpenSearch
+        VideoSearchDao.SearchPage page;
+        try {
+            SearchCursor after = null;
+            if (params.containsKey("pageState") && !params.get("pageState")[0].isEmpty()) {
+                after = SearchCursor.decode(params.get("pageState")[0]);
+            }
+            page = searchDao.searchVideosPage(query, limit, after);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid search page state for query {}: {}", query, e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
         
-        // pull video search results from OpenSearch
-        Optional<List<Video>> searchResults = searchDao.searchVideos(query, limit);
-        
-        List<VideoResponse> videos = searchResults.get()
+        List<VideoResponse> videos = page.videos()
                 .stream()
                 .map(VideoResponse::fromVideo)
                 .collect(Collectors.toList());
+        addViewsAndRatings(videos);
+
+        Pagination pagination = Pagination.ofKeysetPage(page.page(), limit, videos.size(),
+                page.next() == null ? null : page.next().encode());
         
-        // add views and ratings to videos
-        for (VideoResponse video : videos) {
-        	Optional<Video> videoDB = videoDao.findByVideoId(video.getVideoId(), false);
-        	
-        	if (videoDB.isPresent()) {
-        		if (videoDB.get().getStats() != null) {
-        			video.setViews(videoDB.get().getStats().getViews());
-        		}
-        	}
-        	
-        	List<Rating> ratingsDB = ratingDao.findByVideoId(video.getVideoId());
-        	int ratingTotal = 0;
-        	int ratingCount = 0;
-        	
-        	for (Rating rating : ratingsDB) {
-        		ratingCount++;
-        		ratingTotal = ratingTotal + rating.getRatingAsInt();
-        	}
-        	
-        	if (ratingCount > 0) {
-        		video.setRating(ratingTotal / ratingCount);
-        	}
-        }
-        
-        SearchVideosResponse response = new SearchVideosResponse(videos);
+        SearchVideosResponse response = new SearchVideosResponse(videos, pagination);
         return ResponseEntity.ok(response);
     }
-    
-    public ResponseEntity<?> searchVideosByVector(
-            HttpServletRequest request) {
 
-        Integer limit = 20;
-        Map<String, String[]> params = request.getParameterMap();
+    /**
+     * Search videos with both OpenSearch and vector search, fusing the two rankings
+     */
+    @GetMapping(value = "/videos", params = "mode=hybrid")
+    public ResponseEntity<?> searchVideosHybrid(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "20") int limit) {
 
-        String query = params.get("query")[0];
-        if (params.containsKey("limit")) {
-            limit = Integer.parseInt(params.get("limit")[0]);
+        if (query.trim().isEmpty()) {
+            logger.warn("Empty query string provided for video search");
+            return ResponseEntity.badRequest().body(List.of());
         }
+        limit = clampLimit(limit);
 
-        if (query == null || query.trim().isEmpty()) {
+        try {
+            List<VideoResponse> videos = hybridSearchService.search(query, limit)
+                .stream()
+                .map(VideoResponse::fromVideo)
+                .collect(Collectors.toList());
+            addViewsAndRatings(videos);
+            return ResponseEntity.ok(new SearchVideosResponse(videos));
+        } catch (IllegalStateException e) {
+            logger.error("Hybrid search failed for query: {}: {}", query, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(List.of());
+        }
+    }
+
+    /**
+     * Bounds a requested page size to 1-100 results.
+     */
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Fills views and ratings with one batched lookup of the stats kept on each video,
+     * so the cost of enrichment grows with neither the hits nor their ratings.
+     */
+    private void addViewsAndRatings(List<VideoResponse> videos) {
+        if (videos.isEmpty()) {
+            return;
+        }
+        List<String> videoIds = videos.stream().map(VideoResponse::getVideoId).toList();
+        Map<String, VideoPlaybackStats> stats = videoDao.findStatsByVideoIds(videoIds);
+
+        for (VideoResponse video : videos) {
+            VideoPlaybackStats videoStats = stats.get(video.getVideoId());
+            if (videoStats == null) {
+                continue;
+            }
+            video.setViews(videoStats.getViews());
+            if (videoStats.getRatingCount() > 0) {
+                video.setRating(videoStats.getRatingTotal() / videoStats.getRatingCount());
+            }
+        }
+    }
+
+    /**
+     * Search videos by vector similarity to the embedded query string
+     */
+    @GetMapping(value = "/videos", params = "mode=vector")
+    public ResponseEntity<?> searchVideosByVector(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        if (query.trim().isEmpty()) {
             logger.warn("Empty query string provided for video search");
             return ResponseEntity.badRequest().body(List.of());
         }
+        limit = clampLimit(limit);
 
         try {
-            float[] queryEmbeddings = embeddingModel.embed(query).content().vector();
+            // popular queries repeat, so only the first one pays for the remote embedding call
+            float[] queryEmbeddings = queryEmbeddingCache.get(query, embeddingService::embed);
             
             Optional<List<Video>> searchResults = videoDao.searchVideos(queryEmbeddings, limit);
             
@@ -183,4 +240,12 @@ public class SearchController {
             return ResponseEntity.internalServerError().body(List.of());
         }
     }
-} 
\ No newline at end of file
+
+    @ExceptionHandler(SearchUnavailableException.class)
+    public ResponseEntity<?> handleSearchUnavailable(SearchUnavailableException e) {
+        logger.warn("Video search unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .body(List.of());
+    }
+}
@@ -0,0 +1,33 @@
+package com.killrvideo.controller;
+
+import com.killrvideo.service.VideoSearchIndexer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the video search index. {@code POST /actuator/searchindex} starts
+ * a full reindex from the videos collection and {@code GET /actuator/searchindex} reports
+ * its progress. Not exposed by default; once added to the exposure list it needs an
+ * ADMIN token.
+ */
+@Component
+@Endpoint(id = "searchindex")
+public class SearchIndexEndpoint {
+
+    @Autowired
+    private VideoSearchIndexer videoSearchIndexer;
+
+    @ReadOperation
+    public VideoSearchIndexer.ReindexStatus status() {
+        return videoSearchIndexer.getReindexStatus();
+    }
+
+    @WriteOperation
+    public VideoSearchIndexer.ReindexStatus reindex() {
+        return videoSearchIndexer.startReindex();
+    }
+}
@@ -0,0 +1,39 @@
+package com.killrvideo.controller;
+
+import com.killrvideo.service.SimilarVideoIndex;
+import com.killrvideo.vector.IndexEvaluation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint comparing the similar video index's vector encodings side by side.
+ * {@code POST /actuator/vectorindex} samples the live index, builds one index per
+ * encoding and reports memory, recall@10 and queries per second for each.
+ *
+ * Not exposed by default, and restricted to ADMIN users when exposed. The throwaway
+ * indexes live in direct memory next to the live one and are only freed by GC, so on a
+ * small heap (direct memory defaults to -Xmx) a large sample can fail with
+ * OutOfMemoryError: Direct buffer memory; sample sizes and query counts are capped.
+ */
+@Component
+@Endpoint(id = "vectorindex")
+public class VectorIndexEndpoint {
+    private static final int MAX_SAMPLE_SIZE = 20000;
+    private static final int MAX_QUERIES = 1000;
+
+    @Autowired
+    private SimilarVideoIndex similarVideoIndex;
+
+    @WriteOperation
+    public List<IndexEvaluation.Report> evaluate(@Nullable Integer sampleSize, @Nullable Integer queries) {
+        return similarVideoIndex.evaluateEncodings(
+            sampleSize == null ? 5000 : Math.max(1, Math.min(sampleSize, MAX_SAMPLE_SIZE)),
+            queries == null ? 200 : Math.max(1, Math.min(queries, MAX_QUERIES)));
+    }
+}
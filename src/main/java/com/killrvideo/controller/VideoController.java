@@ -3,13 +3,16 @@ package com.killrvideo.controller;
 import com.killrvideo.dao.VideoDao;
 import com.killrvideo.dao.RatingDao;
 import com.killrvideo.dao.CommentDao;
+import com.killrvideo.dao.CommentCursor;
 import com.killrvideo.dao.UserDao;
 import com.killrvideo.dto.*;
 import com.killrvideo.security.UserDetailsImpl;
+import com.killrvideo.service.CommentSentimentPipeline;
+import com.killrvideo.service.CommentStreamService;
+import com.killrvideo.service.EmbeddingService;
+import com.killrvideo.service.SimilarVideoIndex;
 //import com.killrvideo.service.StorageService;
 
-import dev.langchain4j.model.embedding.EmbeddingModel;
-import dev.langchain4j.model.huggingface.HuggingFaceEmbeddingModel;
 import io.jsonwebtoken.lang.Arrays;
 
 import jakarta.validation.Valid;
@@ -19,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -27,6 +31,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.datastax.astra.client.core.vector.DataAPIVector;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -37,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -69,15 +75,19 @@ public class VideoController {
     @Autowired
     private CommentDao commentDao;
 
+    @Autowired
+    private CommentStreamService commentStreamService;
+
+    @Autowired
+    private SimilarVideoIndex similarVideoIndex;
+
+    @Autowired
+    private CommentSentimentPipeline commentSentimentPipeline;
+
 //    private StorageService storageService = new StorageService();
 
-    //private static EmbeddingModel embeddingModel = new AllMiniLmL6V2EmbeddingModel();
-    private static EmbeddingModel embeddingModel = HuggingFaceEmbeddingModel.builder()
-			.accessToken(System.getenv("HF_API_KEY"))
-			.baseUrl("https://router.huggingface.co/hf-inference/")
-			.modelId("ibm-granite/granite-embedding-30m-english")
-			.waitForModel(true)
-			.build();
+    @Autowired
+    private EmbeddingService embeddingService;
 
     public VideoController() {
         _YOUTUBE_PATTERNS.add(Pattern.compile("(?:https?://)?(?:www\\.)?youtu\\.be/(?<id>[A-Za-z0-9_-]{11})"));
@@ -131,7 +141,7 @@ public class VideoController {
             
             // Generate the embedding for the video
             String videoText = video.getName();
-            float[] videoVector = embeddingModel.embed(videoText).content().vector();
+            float[] videoVector = embeddingService.embed(videoText);
             video.setVector(new DataAPIVector(videoVector));
 
             // save video to database
@@ -361,7 +371,12 @@ public class VideoController {
                     }
 
                     // Update only the fields that are present in the request
+                    float[] vector = null;
                     if (updateRequest.getName() != null) {
+                        // the embedding is derived from the name, so a rename re-embeds the video
+                        if (!updateRequest.getName().equals(video.getName())) {
+                            vector = embeddingService.embed(updateRequest.getName());
+                        }
                         video.setName(updateRequest.getName());
                     }
                     if (updateRequest.getDescription() != null) {
@@ -371,7 +386,7 @@ public class VideoController {
                         video.setTags(updateRequest.getTags());
                     }
 
-                    videoDao.update(video);
+                    videoDao.update(videoId, updateRequest, vector);
                     return ResponseEntity.ok(VideoResponse.fromVideo(video));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -386,19 +401,25 @@ public class VideoController {
             @RequestParam(defaultValue = "5") int requestedLimit) {
         final int limit = requestedLimit <= 0 || requestedLimit > 20 ? 5 : requestedLimit;
 
-        Optional<Video> sourceVideoOpt = videoDao.findByVideoId(videoId, true);
-
-        if (sourceVideoOpt.isPresent()) {
-            Video sourceVideo = sourceVideoOpt.get();
+        // served from the in-memory graph when it knows the video, otherwise by a Data API vector search
+        List<Video> similarVideos = similarVideoIndex.findSimilar(videoId, limit)
+            .map(videoDao::findByVideoIds)
+            .orElse(null);
+        if (similarVideos == null) {
+            Optional<Video> sourceVideoOpt = videoDao.findByVideoId(videoId, true);
+            if (sourceVideoOpt.isPresent()) {
+                similarVideos = videoDao.findByVector(sourceVideoOpt.get().getVector(), limit + 1);
+            }
+        }
 
-            List<Video> similarVideos = videoDao.findByVector(sourceVideo.getVector(), limit + 1);
+        if (similarVideos != null) {
             List<VideoResponse> returnVal = new ArrayList<>();
             
             for (Video video : similarVideos) {
             	VideoResponse vResp = VideoResponse.fromVideo(video);
             	
         		// don't add the same video into the result set
-            	if (!sourceVideo.getVideoid().equals(video.getVideoid())) {
+            	if (!videoId.equals(video.getVideoid()) && returnVal.size() < limit) {
             	
 	            	// add video ratings
 	            	try {
@@ -477,6 +498,8 @@ public class VideoController {
         }
 
         Comment savedComment = commentDao.save(comment);
+        commentStreamService.publish(savedComment);
+        commentSentimentPipeline.enqueue(savedComment.getCommentId());
         
         CommentResponse response = CommentResponse.fromComment(savedComment);
         
@@ -486,40 +509,113 @@ public class VideoController {
 
     /**
      * Get comments for a video
-     * /videos/${videoId}/comments?page=${page}&pageSize=${pageSize}
+     * /videos/${videoId}/comments?pageSize=${pageSize}&pageState=${pageState}
+     * Pages are keyset-based: pass back pagination.nextPageState to get the next page.
+     * The legacy page parameter is still honoured when no pageState is supplied.
      */
     @GetMapping("/{videoId}/comments")
-    public ResponseEntity<CommentsDataResponse> getCommentsByVideo(
+    public ResponseEntity<?> getCommentsByVideo(
             @PathVariable String videoId,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int pageSize) {
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(required = false) String pageState) {
+        if (page <= 0) {
+            page = 1;
+        }
+        if (pageSize <= 0 || pageSize > 100) {
+            pageSize = 20;
+        }
 
-        // rudimentary limit calculation, for now
-        int limit = pageSize * page;
+        // fetch one extra comment to find out whether there is a next page
+        List<Comment> comments;
+        if (pageState != null && !pageState.isEmpty()) {
+            CommentCursor after;
+            try {
+                after = CommentCursor.decode(pageState);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid comment page state for video {}: {}", videoId, e.getMessage());
+                return ResponseEntity.badRequest().body("Error: Invalid pageState");
+            }
+            page = after.getPage() + 1;
+            comments = commentDao.findByVideoId(videoId, after, pageSize + 1);
+        } else if (page > 1) {
+            comments = commentDao.findByVideoId(videoId, (page - 1) * pageSize, pageSize + 1);
+        } else {
+            comments = commentDao.findByVideoId(videoId, null, pageSize + 1);
+        }
 
-        List<Comment> comments = commentDao.findByVideoId(videoId, limit);
-        List<CommentResponse> commentRespList = new ArrayList<>();
+        boolean hasMore = comments.size() > pageSize;
+        if (hasMore) {
+            comments = comments.subList(0, pageSize);
+        }
+
+        // names are denormalized onto comments; only legacy comments without one
+        // need a user lookup, and those are resolved in a single batched query
+        Set<String> unnamedUserIds = new HashSet<>();
         for (Comment comment : comments) {
-            CommentResponse commentResp = CommentResponse.fromComment(comment);
+            if (comment.getUserName() == null && comment.getUserId() != null) {
+                unnamedUserIds.add(comment.getUserId());
+            }
+        }
+        Map<String, User> users = Collections.emptyMap();
+        if (!unnamedUserIds.isEmpty()) {
+            try {
+                users = userDao.findByUserIds(unnamedUserIds);
+            } catch (Exception e) {
+                // the names are cosmetic; serve the page with anonymous authors
+                logger.error("Error locating comment authors for video {}: {}", videoId, e.getMessage());
+            }
+        }
 
-            Optional<User> userOpt = userDao.findByUserId(comment.getUserId());
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                commentResp.setFirstName(user.getFirstName());
-                commentResp.setLastName(user.getLastName());
+        List<CommentResponse> commentRespList = new ArrayList<>();
+        for (Comment comment : comments) {
+            if (comment.getUserName() == null) {
+                User user = users.get(comment.getUserId());
+                if (user != null) {
+                    comment.setUserName(user.getFirstName() + " " + user.getLastName());
+                    CommentResponse commentResp = CommentResponse.fromComment(comment);
+                    commentResp.setFirstName(user.getFirstName());
+                    commentResp.setLastName(user.getLastName());
+                    commentRespList.add(commentResp);
+                } else {
+                    CommentResponse commentResp = CommentResponse.fromComment(comment);
+                    commentResp.setFirstName("anonymous");
+                    commentResp.setLastName("user");
+                    commentRespList.add(commentResp);
+                }
             } else {
-                commentResp.setFirstName("anonymous");
-                commentResp.setLastName("user");
+                commentRespList.add(CommentResponse.fromComment(comment));
             }
+        }
 
-            commentRespList.add(commentResp);
+        String nextPageState = null;
+        if (hasMore) {
+            Comment last = comments.get(comments.size() - 1);
+            nextPageState = new CommentCursor(page, last.getTimestamp(), last.getCommentId()).encode();
         }
+        Pagination pagination = Pagination.ofKeysetPage(page, pageSize, commentRespList.size(), nextPageState);
 
-        CommentsDataResponse response = new CommentsDataResponse(commentRespList);
+        CommentsDataResponse response = new CommentsDataResponse(commentRespList, pagination);
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Stream new comments for a video as Server-Sent Events.
+     * Reconnecting clients send Last-Event-ID to replay comments they missed.
+     */
+    @GetMapping(path = "/{videoId}/comments/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamComments(
+            @PathVariable String videoId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(commentStreamService.subscribe(videoId, lastEventId));
+        } catch (IllegalStateException e) {
+            logger.warn("Rejected comment stream subscription for video {}: {}", videoId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
         /**
      * Delete a comment
      */
@@ -0,0 +1,95 @@
+package com.killrvideo.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consecutive-failure circuit breaker for a remote dependency. After the threshold of
+ * failed calls in a row the circuit opens and calls are refused without touching the
+ * network. Once the open period has passed a single trial call is let through: success
+ * closes the circuit, failure opens it for another period.
+ *
+ * Publishes {@code killrvideo.circuit.state} (0 closed, 1 half open, 2 open) and counters
+ * of refused calls and of transitions to open, all tagged with the breaker's name.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Counter rejected;
+    private final Counter opened;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, boolean enabled, int failureThreshold, long openMs, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.rejected = meterRegistry.counter("killrvideo.circuit.rejected", "name", name);
+        this.opened = meterRegistry.counter("killrvideo.circuit.opened", "name", name);
+        meterRegistry.gauge("killrvideo.circuit.state", Tags.of("name", name),
+            this, breaker -> breaker.getState().ordinal());
+    }
+
+    /**
+     * Asks to make a call. Every permitted call must be followed by {@link #onSuccess()}
+     * or {@link #onFailure()}.
+     *
+     * @return false if the call should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuit {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (enabled && (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold))) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            opened.increment();
+            logger.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,80 @@
+package com.killrvideo.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a comment listing sorted by (timestamp, comment_id) descending,
+ * with the number of the page it follows so page metadata stays right on deep pages.
+ * Encoded as an opaque, URL-safe continuation token so clients never see the key layout.
+ */
+public final class CommentCursor {
+    private static final char SEPARATOR = '|';
+
+    private final int page;
+    private final Instant timestamp;
+    private final String commentId;
+
+    /**
+     * @param page Number of the page this cursor follows, starting at 1
+     * @param timestamp Timestamp of the last comment on that page
+     * @param commentId ID of the last comment on that page
+     */
+    public CommentCursor(int page, Instant timestamp, String commentId) {
+        this.page = page;
+        this.timestamp = timestamp;
+        this.commentId = commentId;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getCommentId() {
+        return commentId;
+    }
+
+    /**
+     * Encodes this position as a continuation token.
+     *
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = String.valueOf(page) + SEPARATOR + timestamp + SEPARATOR + commentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token produced by {@link #encode()}.
+     *
+     * @param token The token supplied by the client
+     * @return The decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static CommentCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] fields = raw.split("\\" + SEPARATOR, 3);
+            // tokens issued before the page number was added hold only timestamp and comment id
+            if (fields.length == 2 && !fields[0].isEmpty() && !fields[1].isEmpty()) {
+                return new CommentCursor(1, Instant.parse(fields[0]), fields[1]);
+            }
+            if (fields.length != 3 || fields[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid page state");
+            }
+            int page = Integer.parseInt(fields[0]);
+            if (page < 1) {
+                throw new IllegalArgumentException("Invalid page state");
+            }
+            return new CommentCursor(page, Instant.parse(fields[1]), fields[2]);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page state", e);
+        }
+    }
+}
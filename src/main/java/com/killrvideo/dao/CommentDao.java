@@ -2,28 +2,52 @@ package com.killrvideo.dao;
 
 import com.datastax.astra.client.collections.Collection;
 import com.datastax.astra.client.databases.Database;
+import com.datastax.astra.client.collections.commands.Update;
+import com.datastax.astra.client.core.query.Filter;
+import com.datastax.astra.client.core.query.FilterOperator;
+import com.datastax.astra.client.core.query.Projection;
 import com.datastax.astra.client.core.query.Filters;
 import com.datastax.astra.client.collections.commands.options.CollectionFindOptions;
 import com.datastax.astra.client.core.query.Sort;
 
 import com.killrvideo.dto.Comment;
+import com.killrvideo.dto.Video;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public class CommentDao {
     private static final Logger logger = LoggerFactory.getLogger(CommentDao.class);
+
+    // Data API limit on the number of values in a single $in filter
+    private static final int MAX_IN_VALUES = 100;
+
+    // the Data API sorts filtered results in memory and fails once the filter matches
+    // more documents than it will sort (about 10,000), so sorted listings are read in
+    // time windows; a window grows after an empty one, up to the maximum
+    private static final Duration HISTORY_WINDOW = Duration.ofDays(7);
+    private static final Duration MAX_HISTORY_WINDOW = Duration.ofDays(365);
+
     private final Collection<Comment> commentCollection;
+    private final VideoDao videoDao;
 
     @Autowired
-    public CommentDao(Database killrVideoDatabase) {
+    public CommentDao(Database killrVideoDatabase, VideoDao videoDao) {
         this.commentCollection = killrVideoDatabase.getCollection("comments", Comment.class);
+        this.videoDao = videoDao;
         logger.info("Initialized CommentDao with 'comments' collection");
     }
 
@@ -41,6 +65,7 @@ public class CommentDao {
         }
         commentCollection.insertOne(comment);
         logger.debug("Saved comment with ID: {}", comment.getCommentId());
+        adjustCommentCount(comment.getVideoId(), 1);
         return comment;
     }
 
@@ -68,11 +93,50 @@ public class CommentDao {
      * @return Iterable of comments
      */
     public List<Comment> findByVideoId(String videoId, int limit) {
-        logger.debug("Finding comments for video: {}, limit: {}", videoId, limit);
+        return findByVideoId(videoId, null, limit);
+    }
+
+    /**
+     * Finds one page of comments for a specific video using keyset pagination.
+     * Comments are sorted by (timestamp, comment_id) in descending order and the page
+     * starts strictly after the supplied cursor, so every page costs the same as the first.
+     * Comments are read in time windows back to the video's added date, so a video with
+     * more comments than the Data API in-memory sort limit can still be paged.
+     *
+     * @param videoId The ID of the video
+     * @param after Position of the last comment on the previous page, or null for the first page
+     * @param limit Maximum number of comments to return
+     * @return List of comments
+     */
+    public List<Comment> findByVideoId(String videoId, CommentCursor after, int limit) {
+        logger.debug("Finding comments for video: {}, after: {}, limit: {}", videoId,
+            after != null ? after.getCommentId() : null, limit);
+        Instant since = videoDao.findByVideoId(videoId, false)
+            .map(Video::getAddedDate)
+            .orElse(Instant.EPOCH);
+        return findInWindows(Filters.eq("video_id", videoId), after, limit, since);
+    }
+
+    /**
+     * Finds comments for a specific video by page offset. Only used for clients that
+     * still page by number; the skip is applied server-side so earlier pages are not
+     * transferred, but cursor paging via {@link #findByVideoId(String, CommentCursor, int)}
+     * is preferred. The offset query sorts every comment of the video in one go, so it
+     * fails for videos with more comments than the Data API in-memory sort limit.
+     *
+     * @param videoId The ID of the video
+     * @param skip Number of comments to skip
+     * @param limit Maximum number of comments to return
+     * @return List of comments
+     */
+    public List<Comment> findByVideoId(String videoId, int skip, int limit) {
+        logger.debug("Finding comments for video: {}, skip: {}, limit: {}", videoId, skip, limit);
         return commentCollection.find(
             Filters.eq("video_id", videoId),
-            new CollectionFindOptions().sort(Sort.descending("timestamp"))
-            .limit(limit))
+            new CollectionFindOptions()
+                .sort(Sort.descending("timestamp"), Sort.descending("comment_id"))
+                .skip(skip)
+                .limit(limit))
             .toList();
     }
 
@@ -92,6 +156,132 @@ public class CommentDao {
             .toList();
     }
 
+    /**
+     * Finds several comments by ID with a single $in query, returning only
+     * the fields needed to score them.
+     *
+     * @param commentIds The IDs of the comments, at most 100
+     * @return List of the comments found
+     */
+    public List<Comment> findTextByCommentIds(java.util.Collection<String> commentIds) {
+        logger.debug("Finding text for {} comments", commentIds.size());
+        return commentCollection.find(
+            Filters.in("comment_id", commentIds.toArray()),
+            new CollectionFindOptions()
+                .projection(new Projection("comment_id", true), new Projection("comment", true)))
+            .toList();
+    }
+
+    /**
+     * Writes a comment's sentiment score with a partial update.
+     *
+     * @param commentId The ID of the comment
+     * @param sentimentScore The computed score
+     */
+    public void updateSentimentScore(String commentId, float sentimentScore) {
+        logger.debug("Updating sentiment score for comment with ID: {}", commentId);
+        commentCollection.updateOne(
+            Filters.eq("comment_id", commentId),
+            new Update().set("sentiment_score", sentimentScore));
+    }
+
+    /**
+     * Finds comments that still have no sentiment score, for example because the
+     * pipeline dropped them when its queue was full. Only the ID is returned.
+     *
+     * @param writtenBefore Only comments written at or before this time, so comments
+     *                      the pipeline is still working on are left alone
+     * @param limit Maximum number of comments to return
+     * @return List of unscored comments
+     */
+    public List<Comment> findUnscored(Instant writtenBefore, int limit) {
+        logger.debug("Finding comments without sentiment_score, limit: {}", limit);
+        return commentCollection.find(
+            Filters.and(
+                new Filter("sentiment_score", FilterOperator.EXISTS, false),
+                Filters.lte("timestamp", writtenBefore)),
+            new CollectionFindOptions()
+                .projection(new Projection("comment_id", true))
+                .limit(limit))
+            .toList();
+    }
+
+    /**
+     * Finds comments that were written without a denormalized user name, skipping
+     * comments already marked as unresolvable.
+     *
+     * @param limit Maximum number of comments to return
+     * @return List of comments missing user_name
+     */
+    public List<Comment> findMissingUserName(int limit) {
+        logger.debug("Finding comments without user_name, limit: {}", limit);
+        return commentCollection.find(
+            Filters.and(
+                new Filter("user_name", FilterOperator.EXISTS, false),
+                new Filter("user_name_unresolved", FilterOperator.EXISTS, false)),
+            new CollectionFindOptions().limit(limit))
+            .toList();
+    }
+
+    /**
+     * Marks comments whose author can no longer be found, so the backfill stops
+     * picking them up. They keep rendering as an anonymous user.
+     *
+     * @param commentIds The IDs of the comments
+     */
+    public void markUserNameUnresolved(List<String> commentIds) {
+        logger.debug("Marking {} comments with unresolvable user_name", commentIds.size());
+        for (int from = 0; from < commentIds.size(); from += MAX_IN_VALUES) {
+            List<String> batch = commentIds.subList(from, Math.min(from + MAX_IN_VALUES, commentIds.size()));
+            commentCollection.updateMany(
+                Filters.in("comment_id", batch.toArray()),
+                new Update().set("user_name_unresolved", true));
+        }
+    }
+
+    /**
+     * Backfills the denormalized user name on every comment by a user that lacks one.
+     *
+     * @param userId The ID of the user
+     * @param userName The user's display name
+     */
+    public void setMissingUserName(String userId, String userName) {
+        logger.debug("Backfilling user_name for comments by user: {}", userId);
+        commentCollection.updateMany(
+            Filters.and(
+                Filters.eq("user_id", userId),
+                new Filter("user_name", FilterOperator.EXISTS, false)),
+            new Update().set("user_name", userName));
+    }
+
+    /**
+     * Finds one page of a user's comment history using keyset pagination on
+     * (timestamp, comment_id) descending. Only the fields needed to render the
+     * history are projected; user_id is implied by the filter and left out.
+     *
+     * The history is read in time windows, so users with tens of thousands of comments
+     * stay under the Data API in-memory sort limit.
+     *
+     * @param userId The ID of the user
+     * @param after Position of the last comment on the previous page, or null for the first page
+     * @param limit Maximum number of comments to return
+     * @param since No comment is older than this, typically the user's creation time
+     * @return List of comments
+     */
+    public List<Comment> findByUserId(String userId, CommentCursor after, int limit, Instant since) {
+        logger.debug("Finding comment history for user: {}, after: {}, limit: {}", userId,
+            after != null ? after.getCommentId() : null, limit);
+        List<Comment> comments = findInWindows(Filters.eq("user_id", userId), after, limit, since,
+            new Projection("comment_id", true),
+            new Projection("video_id", true),
+            new Projection("user_name", true),
+            new Projection("comment", true),
+            new Projection("timestamp", true),
+            new Projection("sentiment_score", true));
+        comments.forEach(comment -> comment.setUserId(userId));
+        return comments;
+    }
+
     /**
      * Updates an existing comment document.
      *
@@ -114,6 +304,120 @@ public class CommentDao {
      */
     public void deleteByCommentId(String commentId) {
         logger.debug("Deleting comment with ID: {}", commentId);
-        commentCollection.deleteOne(Filters.eq("comment_id", commentId));
+        commentCollection.findOneAndDelete(Filters.eq("comment_id", commentId))
+            .ifPresent(deleted -> adjustCommentCount(deleted.getVideoId(), -1));
+    }
+
+    /**
+     * Counts comments per video by streaming only the video_id of every comment.
+     * Used to reconcile the maintained counters; not for the request path.
+     *
+     * @return Map of videoId to number of comments
+     */
+    public Map<String, Long> countAllByVideo() {
+        logger.debug("Counting comments for all videos");
+        Map<String, Long> counts = new HashMap<>();
+        for (Comment comment : commentCollection.find(null, new CollectionFindOptions()
+                .projection(new Projection("video_id", true)))) {
+            if (comment.getVideoId() != null) {
+                counts.merge(comment.getVideoId(), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Finds the videos with a comment written at or after the given time, projecting only
+     * video_id. Used by reconciliation to leave videos alone while their counters may still
+     * have an $inc in flight.
+     *
+     * @param since Earliest comment timestamp to include
+     * @return Set of videoIds
+     */
+    public Set<String> findVideoIdsCommentedSince(Instant since) {
+        logger.debug("Finding videos commented since {}", since);
+        Set<String> videoIds = new HashSet<>();
+        for (Comment comment : commentCollection.find(Filters.gte("timestamp", since), new CollectionFindOptions()
+                .projection(new Projection("video_id", true)))) {
+            if (comment.getVideoId() != null) {
+                videoIds.add(comment.getVideoId());
+            }
+        }
+        return videoIds;
+    }
+
+    /**
+     * The counter is best effort: a failed $inc must not fail the comment write,
+     * the reconciliation job corrects any drift.
+     */
+    private void adjustCommentCount(String videoId, long delta) {
+        if (videoId == null) {
+            return;
+        }
+        try {
+            videoDao.incrementCommentCount(videoId, delta);
+        } catch (Exception e) {
+            logger.warn("Could not adjust comment count for video {}: {}", videoId, e.getMessage());
+        }
+    }
+
+    /**
+     * Restricts a filter to comments that sort strictly after the given cursor
+     * in (timestamp, comment_id) descending order.
+     */
+    /**
+     * Reads a (timestamp, comment_id) descending listing backwards one time window at a
+     * time, so each query only matches the comments of its window. A single window still
+     * has to hold fewer than about 10,000 comments.
+     */
+    private List<Comment> findInWindows(Filter base, CommentCursor after, int limit, Instant since,
+                                        Projection... projection) {
+        List<Comment> comments = new ArrayList<>();
+        Duration window = HISTORY_WINDOW;
+        Instant upper = after != null ? after.getTimestamp() : Instant.now();
+        boolean first = true;
+
+        while (comments.size() < limit) {
+            Instant lower = upper.minus(window);
+            Filter inWindow = Filters.and(base, Filters.gte("timestamp", lower));
+            // the first window is open-ended above, so the newest comments are never cut off
+            Filter filter = first
+                ? keysetFilter(inWindow, after)
+                : Filters.and(inWindow, Filters.lt("timestamp", upper));
+            CollectionFindOptions options = new CollectionFindOptions()
+                .sort(Sort.descending("timestamp"), Sort.descending("comment_id"))
+                .limit(limit - comments.size());
+            if (projection.length > 0) {
+                options.projection(projection);
+            }
+            List<Comment> found = commentCollection.find(filter, options).toList();
+            comments.addAll(found);
+
+            if (!lower.isAfter(since)) {
+                break;
+            }
+            if (found.isEmpty()) {
+                window = window.multipliedBy(2);
+                if (window.compareTo(MAX_HISTORY_WINDOW) > 0) {
+                    window = MAX_HISTORY_WINDOW;
+                }
+            }
+            upper = lower;
+            first = false;
+        }
+        return comments;
+    }
+
+    private Filter keysetFilter(Filter base, CommentCursor after) {
+        if (after == null) {
+            return base;
+        }
+        return Filters.and(
+            base,
+            Filters.or(
+                Filters.lt("timestamp", after.getTimestamp()),
+                Filters.and(
+                    Filters.eq("timestamp", after.getTimestamp()),
+                    Filters.lt("comment_id", after.getCommentId()))));
     }
 }
\ No newline at end of file
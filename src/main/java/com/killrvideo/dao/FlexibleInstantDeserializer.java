@@ -0,0 +1,65 @@
+package com.killrvideo.dao;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Reads an Instant stored either as a Data API date ({@code {"$date": millis}}) or as an
+ * ISO-8601 string, the format older records were written in. Neither path relies on a
+ * thrown exception; a value that cannot be read at all becomes null.
+ */
+public class FlexibleInstantDeserializer extends JsonDeserializer<Instant> {
+
+    @Override
+    public Instant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parseIso(parser.getText());
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return Instant.ofEpochMilli(parser.getLongValue());
+        }
+        if (token == JsonToken.START_OBJECT) {
+            JsonNode date = parser.<JsonNode>readValueAsTree().get("$date");
+            if (date == null) {
+                return null;
+            }
+            return date.isNumber() ? Instant.ofEpochMilli(date.asLong()) : parseIso(date.asText());
+        }
+        if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            Object value = parser.getEmbeddedObject();
+            if (value instanceof Instant instant) {
+                return instant;
+            }
+            if (value instanceof Date date) {
+                return date.toInstant();
+            }
+        }
+        return null;
+    }
+
+    private static Instant parseIso(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = DateTimeFormatter.ISO_INSTANT.parseUnresolved(text, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()
+                || !parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return null;
+        }
+        long nanos = parsed.isSupported(ChronoField.NANO_OF_SECOND) ? parsed.getLong(ChronoField.NANO_OF_SECOND) : 0;
+        return Instant.ofEpochSecond(parsed.getLong(ChronoField.INSTANT_SECONDS), nanos);
+    }
+}
@@ -1,8 +1,11 @@
 package com.killrvideo.dao;
 
 import com.datastax.astra.client.collections.Collection;
+import com.datastax.astra.client.collections.commands.Update;
+import com.datastax.astra.client.collections.commands.options.CollectionFindOptions;
 import com.datastax.astra.client.databases.Database;
 import com.datastax.astra.client.core.query.Filters;
+import com.datastax.astra.client.core.query.Projection;
 
 import com.killrvideo.dto.Rating;
 import org.slf4j.Logger;
@@ -10,23 +13,28 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public class RatingDao {
     private static final Logger logger = LoggerFactory.getLogger(RatingDao.class);
+
     private final Collection<Rating> ratingCollection;
+    private final VideoDao videoDao;
 
     @Autowired
-    public RatingDao(Database killrVideoDatabase) {
+    public RatingDao(Database killrVideoDatabase, VideoDao videoDao) {
         this.ratingCollection = killrVideoDatabase.getCollection("video_ratings", Rating.class);
+        this.videoDao = videoDao;
         logger.info("Initialized RatingDao with 'video_ratings' collection");
     }
 
     /**
-     * Saves a new rating to the database.
+     * Saves a new rating to the database and adds it to the video's rating counters.
      * If the ratingId is not set, generates a new UUID.
      *
      * @param rating The rating to save
@@ -39,6 +47,7 @@ public class RatingDao {
         }
         ratingCollection.insertOne(rating);
         logger.debug("Saved rating with ID: {}", rating.getRatingId());
+        videoDao.adjustRatingTotals(rating.getVideoId(), 1, rating.getRatingAsInt());
         return rating;
     }
 
@@ -72,28 +81,66 @@ public class RatingDao {
     }
 
     /**
-     * Updates an existing rating.
+     * Fills the rating counters kept on videos from the ratings collection, for ratings
+     * written before the counters were maintained. Scans every rating once, projecting
+     * only the video id and rating, so it should run while ratings are quiet: a rating
+     * written during the scan can be missed or counted twice.
+     *
+     * @return The number of videos whose counters were written
+     */
+    public int backfillVideoTotals() {
+        Map<String, RatingTotals> totals = new HashMap<>();
+        for (Rating rating : ratingCollection.find(null,
+                new CollectionFindOptions()
+                    .projection(new Projection("videoid", true), new Projection("rating", true)))) {
+            totals.computeIfAbsent(rating.getVideoId(), id -> new RatingTotals()).add(rating.getRatingAsInt());
+        }
+        int updated = 0;
+        for (Map.Entry<String, RatingTotals> entry : totals.entrySet()) {
+            try {
+                videoDao.setRatingTotals(entry.getKey(), entry.getValue());
+                updated++;
+            } catch (Exception e) {
+                logger.warn("Could not set rating totals for video {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Updates the value of an existing rating and moves the video's rating total by the
+     * difference. The previous value comes back from the same findOneAndUpdate, so
+     * concurrent changes of one rating cannot skew the total.
      *
      * @param rating The rating to update
      * @throws IllegalArgumentException if rating ID is null
      */
     public void update(Rating rating) {
         logger.debug("Updating rating with ID: {}", rating.getRatingId());
+        Optional<Rating> previous;
         try {
-            ratingCollection.replaceOne(Filters.eq("_id", rating.getRatingId()), rating);
+            previous = ratingCollection.findOneAndUpdate(Filters.eq("_id", rating.getRatingId()),
+                new Update().set("rating", rating.getRating()));
         } catch (Exception e) {
             logger.error("Error updating rating: {} {}", rating, e.getMessage());
             throw new IllegalArgumentException("Error updating rating: " + e.getMessage());
         }
+        previous.ifPresent(before -> {
+            long delta = rating.getRatingAsInt() - before.getRatingAsInt();
+            if (delta != 0) {
+                videoDao.adjustRatingTotals(before.getVideoId(), 0, delta);
+            }
+        });
     }
 
     /**
-     * Deletes a rating by its ID.
+     * Deletes a rating by its ID and removes it from the video's rating counters.
      *
      * @param ratingId The ID of the rating to delete
      */
     public void deleteById(String ratingId) {
         logger.debug("Deleting rating with ID: {}", ratingId);
-        ratingCollection.deleteOne(Filters.eq("_id", ratingId));
+        ratingCollection.findOneAndDelete(Filters.eq("_id", ratingId))
+            .ifPresent(deleted -> videoDao.adjustRatingTotals(deleted.getVideoId(), -1, -deleted.getRatingAsInt()));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.killrvideo.dao;
+
+/**
+ * Number and sum of the ratings of one video, aggregated by {@link RatingDao} for the
+ * one-time migration of the rating counters kept on videos.
+ */
+public final class RatingTotals {
+    private int count;
+    private long total;
+
+    void add(int rating) {
+        count++;
+        total += rating;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
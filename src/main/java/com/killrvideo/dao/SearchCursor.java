@@ -0,0 +1,117 @@
+package com.killrvideo.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a video search result sorted by (score descending, tiebreaker ascending),
+ * with the point in time the next page is read from. Encoded as an opaque, URL-safe
+ * continuation token so clients never see the sort values or the point in time ID.
+ */
+public final class SearchCursor {
+    private static final char SEPARATOR = '|';
+    private static final int FIELDS = 6;
+
+    private final String pitId;
+    private final Instant pitCreatedAt;
+    private final String queryHash;
+    private final int page;
+    private final double score;
+    private final String tiebreaker;
+
+    /**
+     * @param pitId Point in time to read the next page from, or null to read the live index
+     * @param pitCreatedAt When the point in time was opened, or null without one
+     * @param queryHash {@link #hash} of the query the cursor belongs to
+     * @param page Number of the page this cursor follows
+     * @param score Score of the last hit on that page
+     * @param tiebreaker Tiebreaker value of the last hit on that page
+     */
+    public SearchCursor(String pitId, Instant pitCreatedAt, String queryHash, int page, double score, String tiebreaker) {
+        this.pitId = pitId;
+        this.pitCreatedAt = pitCreatedAt;
+        this.queryHash = queryHash;
+        this.page = page;
+        this.score = score;
+        this.tiebreaker = tiebreaker;
+    }
+
+    public String getPitId() {
+        return pitId;
+    }
+
+    public Instant getPitCreatedAt() {
+        return pitCreatedAt;
+    }
+
+    public String getQueryHash() {
+        return queryHash;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getTiebreaker() {
+        return tiebreaker;
+    }
+
+    /**
+     * Fingerprint of a query, so a cursor cannot be replayed against a different one.
+     */
+    public static String hash(String query) {
+        return Integer.toHexString(query.trim().hashCode());
+    }
+
+    /**
+     * Encodes this position as a continuation token.
+     *
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = (pitId == null ? "" : pitId) + SEPARATOR
+            + (pitCreatedAt == null ? 0 : pitCreatedAt.toEpochMilli()) + SEPARATOR
+            + queryHash + SEPARATOR
+            + page + SEPARATOR
+            + score + SEPARATOR
+            + tiebreaker;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token produced by {@link #encode()}.
+     *
+     * @param token The token supplied by the client
+     * @return The decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SearchCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // the tiebreaker comes last, so it may contain the separator
+        String[] fields = raw.split("\\" + SEPARATOR, FIELDS);
+        if (fields.length != FIELDS || fields[2].isEmpty() || fields[5].isEmpty()) {
+            throw new IllegalArgumentException("Invalid page state");
+        }
+        try {
+            long pitCreatedMillis = Long.parseLong(fields[1]);
+            int page = Integer.parseInt(fields[3]);
+            if (page < 1) {
+                throw new IllegalArgumentException("Invalid page state");
+            }
+            return new SearchCursor(
+                fields[0].isEmpty() ? null : fields[0],
+                fields[0].isEmpty() ? null : Instant.ofEpochMilli(pitCreatedMillis),
+                fields[2],
+                page,
+                Double.parseDouble(fields[4]),
+                fields[5]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page state", e);
+        }
+    }
+}
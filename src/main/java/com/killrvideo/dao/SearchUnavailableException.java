@@ -0,0 +1,14 @@
+package com.killrvideo.dao;
+
+/**
+ * Thrown when OpenSearch is not configured, fails, times out, or its circuit is open.
+ */
+public class SearchUnavailableException extends RuntimeException {
+    public SearchUnavailableException(String message) {
+        super(message);
+    }
+
+    public SearchUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
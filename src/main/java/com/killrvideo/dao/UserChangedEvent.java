@@ -0,0 +1,18 @@
+package com.killrvideo.dao;
+
+import com.killrvideo.dto.User;
+
+/**
+ * Published by {@link UserDao} after a user is created or their profile is updated.
+ */
+public class UserChangedEvent {
+    private final User user;
+
+    public UserChangedEvent(User user) {
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -5,88 +5,409 @@ import com.datastax.astra.client.databases.Database;
 import com.datastax.astra.client.core.query.Filters;
 import com.datastax.astra.client.core.query.Filter;
 import com.datastax.astra.client.collections.definition.documents.Document;
+import com.datastax.astra.client.collections.commands.Update;
+import com.datastax.astra.client.collections.commands.options.CollectionFindOneOptions;
 import com.datastax.astra.client.collections.commands.options.CollectionFindOptions;
+import com.datastax.astra.client.collections.commands.options.CollectionUpdateOneOptions;
+import com.datastax.astra.client.collections.commands.results.CollectionUpdateResult;
+import com.datastax.astra.client.core.query.Projection;
 
 import com.killrvideo.dto.User;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 import java.util.List;
+import java.util.Locale;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 public class UserDao {
+    private static final Logger logger = LoggerFactory.getLogger(UserDao.class);
 
-    private final Collection<Document> userCollection;
+    // Data API limit on the number of values in a single $in filter
+    private static final int MAX_IN_VALUES = 100;
+
+    // a guard whose holder never saved the email is reclaimable once this old, so a crash
+    // between reserving an email and saving the user cannot lock the address out
+    private static final Duration RESERVATION_TIMEOUT = Duration.ofMinutes(10);
+
+    private final Collection<UserEntity> userCollection;
+    private final Collection<Document> userDocumentCollection;
+    private final Collection<Document> emailGuardCollection;
+    private final UserProfileCache profileCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean legacyEmailCheck;
 
     @Autowired
-    public UserDao(Database killrVideoDatabase) {
-        this.userCollection = killrVideoDatabase.getCollection("users");
+    public UserDao(Database killrVideoDatabase, UserProfileCache profileCache,
+                   ApplicationEventPublisher eventPublisher,
+                   @Value("${killrvideo.users.email-guard.legacy-check:true}") boolean legacyEmailCheck) {
+        this.userCollection = killrVideoDatabase.getCollection("users", UserEntity.class);
+        // untyped view, used only to find legacy records by how their fields are encoded
+        this.userDocumentCollection = killrVideoDatabase.getCollection("users");
+        // one document per email, keyed by the normalized address, so uniqueness is enforced by _id
+        this.emailGuardCollection = killrVideoDatabase.getCollection("user_emails");
+        this.profileCache = profileCache;
+        this.eventPublisher = eventPublisher;
+        this.legacyEmailCheck = legacyEmailCheck;
     }
 
     public User save(User user) {
-        userCollection.insertOne(toDocument(user));
+        userCollection.insertOne(UserEntity.fromUser(user));
+        // clear any cached miss for the new id or email
+        profileCache.invalidate(user.getUserId());
+        profileCache.invalidateEmail(user.getEmail());
+        eventPublisher.publishEvent(new UserChangedEvent(user));
         return user;
     }
 
     public Optional<User> findById(String id) {
         try {
-            Optional<Document> doc = userCollection.findById(id);
-            if (doc.isPresent()) {
-                User user = toUser(doc.get());
-                return Optional.ofNullable(user);
-            }
-            return Optional.ofNullable(null);
+            return userCollection.findById(id).map(UserEntity::toUser);
         } catch (Exception e) {
             return Optional.ofNullable(null);
         }
     }
 
+    /**
+     * Finds a user's public profile by ID, served from the profile cache when possible.
+     * The returned user never carries the hashed password.
+     *
+     * @param userId The ID of the user
+     * @return Optional containing the user if found
+     */
     public Optional<User> findByUserId(String userId) {
         try {
-            Optional<Document> doc = userCollection.findOne(Filters.eq("userid", userId));
-            if (doc.isPresent()) {
-                User user = toUser(doc.get());
-                return Optional.ofNullable(user);
-            }
-            return Optional.ofNullable(null);
+            return profileCache.getById(userId, this::loadByUserId);
         } catch (Exception e) {
-        	System.out.printf("Error locating user: [{}]\n" + e.toString(), userId);
+            logger.error("Error locating user: [{}]: {}", userId, e.getMessage());
             return Optional.ofNullable(null);
         }
     }
 
+    /**
+     * Reads a user's roles straight from the users collection, bypassing the profile
+     * cache, for checks that must see changes made by other instances. Only userid and
+     * roles are set on the returned user.
+     *
+     * @param userId The ID of the user
+     * @return Optional containing the user if found
+     * @throws RuntimeException if the lookup fails, so a failure is never taken for a missing user
+     */
+    public Optional<User> findRolesByUserId(String userId) {
+        return userCollection.findOne(
+                Filters.eq("userid", userId),
+                new CollectionFindOneOptions().projection(
+                    new Projection("userid", true),
+                    new Projection("roles", true)))
+            .map(UserEntity::toUser);
+    }
+
+    /**
+     * Finds a user's public profile by email, served from the profile cache when possible.
+     * The returned user never carries the hashed password; use
+     * {@link #findCredentialsByEmail(String)} to authenticate.
+     *
+     * @param email The user's email
+     * @return Optional containing the user if found
+     */
     public Optional<User> findByEmail(String email) {
         try {
-            Optional<Document> doc = userCollection.findOne(Filters.eq("email", email));
-            if (doc.isPresent()) {
-                User user = toUser(doc.get());
-                System.out.println("User found: " + email);
-                return Optional.ofNullable(user);
-            } else {
-                System.out.println("User not found: " + email);
-            }
+            return profileCache.getByEmail(email, this::loadByEmail);
+        } catch (Exception e) {
+            logger.error("Error finding user by email: {}: {}", email, e.getMessage());
             return Optional.ofNullable(null);
+        }
+    }
+
+    /**
+     * Loads a user including the hashed password, always from the database.
+     *
+     * @param email The user's email
+     * @return Optional containing the full user if found
+     */
+    public Optional<User> findCredentialsByEmail(String email) {
+        try {
+            return loadByEmail(email);
         } catch (Exception e) {
-            System.out.println("Error finding user by email: " + email);
-            System.out.println("Error: " + e.getMessage());
+            logger.error("Error finding user by email: {}: {}", email, e.getMessage());
             return Optional.ofNullable(null);
         }
     }
 
+    /**
+     * Looks up several users at once. Profiles already in the cache are served from it;
+     * the rest are fetched with one $in query per 100 ids and cached.
+     *
+     * @param userIds The IDs of the users
+     * @return Map of userId to user, containing only the users that were found
+     * @throws RuntimeException if a lookup fails, so a missing user is never confused
+     *         with one that could not be read
+     */
+    public Map<String, User> findByUserIds(java.util.Collection<String> userIds) {
+        Map<String, User> users = new HashMap<>();
+        Set<String> requested = new LinkedHashSet<>(userIds);
+        Map<String, Optional<User>> cached = profileCache.getAllCachedById(requested);
+        List<String> misses = new ArrayList<>();
+
+        for (String userId : requested) {
+            Optional<User> known = cached.get(userId);
+            if (known == null) {
+                misses.add(userId);
+            } else {
+                known.ifPresent(user -> users.put(userId, user));
+            }
+        }
+
+        for (int from = 0; from < misses.size(); from += MAX_IN_VALUES) {
+            List<String> batch = misses.subList(from, Math.min(from + MAX_IN_VALUES, misses.size()));
+            for (UserEntity entity : userCollection.find(Filters.in("userid", batch.toArray())).toList()) {
+                User user = entity.toUser();
+                profileCache.put(user);
+                user.setHashedPassword(null);
+                users.put(user.getUserId(), user);
+            }
+            for (String userId : batch) {
+                if (!users.containsKey(userId)) {
+                    profileCache.putMissing(userId);
+                }
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Checks whether any user has the given email, fetching only the document _id.
+     * Matches the address as given, trimmed and lower-cased; other casings of a legacy
+     * address are only covered once {@link #backfillEmailGuards()} has run.
+     *
+     * @param email The email to check
+     * @return true if a user with the email exists
+     */
     public boolean existsByEmail(String email) {
-        return findByEmail(email).isPresent();
+        Set<String> variants = new LinkedHashSet<>(List.of(email, email.trim(), normalizeEmail(email)));
+        return userCollection.findOne(
+            Filters.in("email", variants.toArray()),
+            new CollectionFindOneOptions().projection(new Projection("_id", true))).isPresent();
     }
 
+    /**
+     * Creates the missing email guard documents for accounts created before the
+     * user_emails collection existed, keyed by the normalized address like every other
+     * guard. Afterwards uniqueness no longer depends on how a legacy address was cased.
+     * Existing guards are never overwritten, so it is safe to run again.
+     *
+     * @return The number of guards created
+     */
+    public int backfillEmailGuards() {
+        CollectionFindOptions options = new CollectionFindOptions()
+            .projection(new Projection("userid", true), new Projection("email", true));
+        int created = 0;
+        for (Document doc : userDocumentCollection.find(null, options)) {
+            String email = doc.getString("email");
+            String userId = doc.getString("userid");
+            if (email == null || userId == null) {
+                continue;
+            }
+            try {
+                CollectionUpdateResult result = emailGuardCollection.updateOne(
+                    Filters.eq("_id", normalizeEmail(email)),
+                    new Update().setOnInsert("userid", userId),
+                    new CollectionUpdateOneOptions().upsert(true));
+                if (result.getUpsertedId() != null) {
+                    created++;
+                }
+            } catch (Exception e) {
+                logger.warn("Could not create email guard for user {}: {}", userId, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Claims an email for a user by upserting its guard document. Only the request that
+     * creates the guard wins, so concurrent registrations of one address cannot both succeed.
+     * Reclaiming an email the same user already holds also succeeds. A guard older than
+     * the reservation timeout whose holder does not have the email, because the process
+     * died before the user was saved or before the previous email was released, is
+     * removed and the email claimed afresh.
+     *
+     * @param email The email to claim
+     * @param userId The ID of the user claiming it
+     * @return true if the email now belongs to the user, false if another user holds it
+     */
+    public boolean reserveEmail(String email, String userId) {
+        return reserveEmail(email, userId, true);
+    }
+
+    private boolean reserveEmail(String email, String userId, boolean reclaim) {
+        String key = normalizeEmail(email);
+        CollectionUpdateResult result = emailGuardCollection.updateOne(
+            Filters.eq("_id", key),
+            new Update()
+                .setOnInsert("userid", userId)
+                .setOnInsert("reserved_at", Instant.now()),
+            new CollectionUpdateOneOptions().upsert(true));
+
+        if (result.getUpsertedId() == null) {
+            Optional<Document> guard = emailGuardCollection.findById(key);
+            if (guard.isPresent() && userId.equals(guard.get().getString("userid"))) {
+                return true;
+            }
+            if (reclaim && guard.isPresent() && isAbandoned(key, guard.get())) {
+                String holder = guard.get().getString("userid");
+                logger.info("Reclaiming abandoned email guard held by user {}", holder);
+                emailGuardCollection.deleteOne(Filters.and(
+                    Filters.eq("_id", key),
+                    Filters.eq("userid", holder)));
+                return reserveEmail(email, userId, false);
+            }
+            logger.debug("Email already reserved: {}", email);
+            return false;
+        }
+
+        // accounts created before the guard collection existed have no guard document
+        if (legacyEmailCheck && existsByEmail(email)) {
+            releaseEmail(email, userId);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isAbandoned(String key, Document guard) {
+        // guards created by the backfill carry no reservation time and always had a user
+        Instant reservedAt = guard.getInstant("reserved_at");
+        if (reservedAt != null && reservedAt.isAfter(Instant.now().minus(RESERVATION_TIMEOUT))) {
+            return false;
+        }
+        String holder = guard.getString("userid");
+        if (holder == null) {
+            return true;
+        }
+        return userDocumentCollection.findOne(
+                Filters.eq("userid", holder),
+                new CollectionFindOneOptions().projection(new Projection("email", true)))
+            .map(user -> user.getString("email"))
+            .map(holderEmail -> !key.equals(normalizeEmail(holderEmail)))
+            .orElse(true);
+    }
+
+    /**
+     * Releases an email claimed by a user, e.g. after an email change or a failed registration.
+     * Guards held by other users are left untouched.
+     *
+     * @param email The email to release
+     * @param userId The ID of the user holding it
+     */
+    public void releaseEmail(String email, String userId) {
+        try {
+            emailGuardCollection.deleteOne(Filters.and(
+                Filters.eq("_id", normalizeEmail(email)),
+                Filters.eq("userid", userId)));
+        } catch (Exception e) {
+            logger.warn("Could not release email guard for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Updates a user's profile fields. The password hash is only written when set, so a
+     * user obtained from the profile cache (which never carries it) can be updated safely.
+     * Cached lookups under both the previous and the new email are dropped.
+     *
+     * @param user The user with updated fields
+     */
     public void update(User user) {
         if (user.getUserId() == null) {
             throw new IllegalArgumentException("User ID cannot be null for update");
         }
-        userCollection.replaceOne(Filters.eq("userid", user.getUserId()), toDocument(user));
+        Update update = new Update()
+            .set("firstname", user.getFirstName())
+            .set("lastname", user.getLastName())
+            .set("email", user.getEmail())
+            .set("roles", user.getRoles());
+        if (user.getHashedPassword() != null) {
+            update = update.set("hashed_password", user.getHashedPassword());
+        }
+        // returns the document as it was before the update, so the previous email is known
+        // even when the profile is no longer cached
+        Optional<UserEntity> previous = userCollection.findOneAndUpdate(Filters.eq("userid", user.getUserId()), update);
+        profileCache.invalidate(user.getUserId());
+        previous.ifPresent(entity -> profileCache.invalidateEmail(entity.getEmail()));
+        profileCache.invalidateEmail(user.getEmail());
+        eventPublisher.publishEvent(new UserChangedEvent(user));
+    }
+
+    /**
+     * Streams every user's searchable fields (userid, names and email) page by page,
+     * without holding the whole collection in memory. Returned users carry no password hash.
+     *
+     * @param action Called once per user
+     */
+    public void forEachSearchableUser(Consumer<User> action) {
+        CollectionFindOptions options = new CollectionFindOptions()
+            .projection(
+                new Projection("userid", true),
+                new Projection("firstname", true),
+                new Projection("lastname", true),
+                new Projection("email", true));
+        for (UserEntity entity : userCollection.find(null, options)) {
+            action.accept(entity.toUser());
+        }
+    }
+
+    /**
+     * Replaces only the stored password hash, e.g. when a login rehashes at a new BCrypt cost.
+     *
+     * @param userId The ID of the user
+     * @param hashedPassword The new password hash
+     */
+    public void updatePassword(String userId, String hashedPassword) {
+        userCollection.updateOne(
+            Filters.eq("userid", userId),
+            new Update().set("hashed_password", hashedPassword));
+        profileCache.invalidate(userId);
+    }
+
+    /**
+     * Rewrites created_date as a Data API date on records that still store it as an
+     * ISO-8601 string. Scans with a projection and only updates the records that need it,
+     * so it is safe to run again.
+     *
+     * @return The number of records updated
+     */
+    public int normalizeCreatedDates() {
+        CollectionFindOptions options = new CollectionFindOptions()
+            .projection(new Projection("userid", true), new Projection("created_date", true));
+        int updated = 0;
+        for (Document doc : userDocumentCollection.find(null, options)) {
+            if (!(doc.get("created_date") instanceof String createdDate)) {
+                continue;
+            }
+            try {
+                userDocumentCollection.updateOne(
+                    Filters.eq("userid", doc.getString("userid")),
+                    new Update().set("created_date", Instant.parse(createdDate)));
+                updated++;
+            } catch (Exception e) {
+                logger.warn("Could not normalize created_date for user {}: {}", doc.getString("userid"), e.getMessage());
+            }
+        }
+        return updated;
     }
 
     public List<User> searchUsers(String queryString, int limit) {
@@ -105,49 +426,21 @@ public class UserDao {
             }
 
             CollectionFindOptions findOptions = new CollectionFindOptions().limit(limit);
-            List<Document> docs = userCollection.find(filter, findOptions).toList();
-            return docs.stream().map(this::toUser).collect(Collectors.toList());
+            List<UserEntity> entities = userCollection.find(filter, findOptions).toList();
+            return entities.stream().map(UserEntity::toUser).collect(Collectors.toList());
         } catch (Exception e) {
             return Collections.emptyList();
         }
     }
-    private Document toDocument(User user) {
-        return new Document()
-            .append("userid", user.getUserId())
-            .append("firstname", user.getFirstName())
-            .append("lastname", user.getLastName())
-            .append("email", user.getEmail())
-            .append("hashed_password", user.getHashedPassword())
-            .append("roles", user.getRoles())
-        	.append("created_date", user.getCreatedAt().toString());
-    }
-
-    private User toUser(Document document) {
-    	
-    	try {
-	        User user = new User(
-	            document.getString("userid"),
-	            document.getString("firstname"),
-	            document.getString("lastname"),
-	            document.getString("email"),
-	            document.getString("hashed_password"),
-	            Instant.parse(document.getString("created_date")),
-	            document.getString("roles")
-	        );
-	        
-	        return user;
-    	} catch (Exception ex) {
-	        User user = new User(
-	            document.getString("userid"),
-	            document.getString("firstname"),
-	            document.getString("lastname"),
-	            document.getString("email"),
-	            document.getString("hashed_password"),
-	            document.getInstant("created_date"),
-	            document.getString("roles")
-	        );
-
-		    return user;
-    	}
-    }
-}
\ No newline at end of file
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Optional<User> loadByUserId(String userId) {
+        return userCollection.findOne(Filters.eq("userid", userId)).map(UserEntity::toUser);
+    }
+
+    private Optional<User> loadByEmail(String email) {
+        return userCollection.findOne(Filters.eq("email", email)).map(UserEntity::toUser);
+    }
+}
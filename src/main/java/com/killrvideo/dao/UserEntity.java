@@ -0,0 +1,109 @@
+package com.killrvideo.dao;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import com.killrvideo.dto.User;
+
+import java.time.Instant;
+
+/**
+ * A document in the {@code users} collection. Field names follow the stored documents,
+ * which differ from the API names on {@link User}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserEntity {
+    @JsonProperty("userid")
+    private String userId;
+
+    @JsonProperty("firstname")
+    private String firstName;
+
+    @JsonProperty("lastname")
+    private String lastName;
+
+    private String email;
+
+    @JsonProperty("hashed_password")
+    private String hashedPassword;
+
+    // written as a Data API date; older records hold an ISO-8601 string
+    @JsonProperty("created_date")
+    @JsonDeserialize(using = FlexibleInstantDeserializer.class)
+    private Instant createdDate;
+
+    private String roles;
+
+    public static UserEntity fromUser(User user) {
+        UserEntity entity = new UserEntity();
+        entity.setUserId(user.getUserId());
+        entity.setFirstName(user.getFirstName());
+        entity.setLastName(user.getLastName());
+        entity.setEmail(user.getEmail());
+        entity.setHashedPassword(user.getHashedPassword());
+        entity.setCreatedDate(user.getCreatedAt());
+        entity.setRoles(user.getRoles());
+        return entity;
+    }
+
+    public User toUser() {
+        return new User(userId, firstName, lastName, email, hashedPassword, createdDate, roles);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getHashedPassword() {
+        return hashedPassword;
+    }
+
+    public void setHashedPassword(String hashedPassword) {
+        this.hashedPassword = hashedPassword;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public void setRoles(String roles) {
+        this.roles = roles;
+    }
+}
@@ -0,0 +1,208 @@
+package com.killrvideo.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import com.killrvideo.dto.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of public user profiles, looked up by userId or email.
+ * Misses are cached too, for a shorter time, so unknown ids and emails do not reach
+ * the database on every request. Entries never carry the hashed password, and every
+ * read returns a copy so callers may modify what they get back.
+ */
+@Component
+public class UserProfileCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileCache.class);
+
+    // userId -> profile, or empty when the user is known not to exist
+    private final Cache<String, Optional<User>> profiles;
+
+    // email -> userId, or empty when no user has the email
+    private final Cache<String, Optional<String>> emails;
+
+    public UserProfileCache(
+            @Value("${killrvideo.cache.users.max-size:10000}") long maxSize,
+            @Value("${killrvideo.cache.users.ttl-seconds:600}") long ttlSeconds,
+            @Value("${killrvideo.cache.users.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this.profiles = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new PresenceExpiry<String, User>(ttlSeconds, negativeTtlSeconds))
+            .build();
+        this.emails = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new PresenceExpiry<String, String>(ttlSeconds, negativeTtlSeconds))
+            .build();
+        logger.info("Initialized UserProfileCache, maxSize: {}, ttl: {}s, negative ttl: {}s",
+            maxSize, ttlSeconds, negativeTtlSeconds);
+    }
+
+    /**
+     * Returns a user by ID, loading and caching it on a miss. Loader exceptions propagate
+     * and are not cached, so a failed lookup is never remembered as a missing user.
+     *
+     * @param userId The ID of the user
+     * @param loader Loads the full user from the database
+     * @return Optional containing the public view of the user
+     */
+    public Optional<User> getById(String userId, Function<String, Optional<User>> loader) {
+        Optional<User> cached = profiles.get(userId, id -> {
+            Optional<User> loaded = loader.apply(id).map(UserProfileCache::publicView);
+            loaded.ifPresent(this::indexEmail);
+            return loaded;
+        });
+        return cached.map(UserProfileCache::publicView);
+    }
+
+    /**
+     * Returns a user by email, loading and caching it on a miss. Loader exceptions propagate.
+     *
+     * @param email The user's email
+     * @param loader Loads the full user from the database
+     * @return Optional containing the public view of the user
+     */
+    public Optional<User> getByEmail(String email, Function<String, Optional<User>> loader) {
+        Optional<String> userId = emails.getIfPresent(email);
+        if (userId != null) {
+            if (userId.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<User> cached = profiles.getIfPresent(userId.get());
+            // the email index can outlive a profile or point at an address the user has since changed
+            if (cached != null && cached.isPresent() && email.equals(cached.get().getEmail())) {
+                return Optional.of(publicView(cached.get()));
+            }
+        }
+
+        Optional<User> loaded = loader.apply(email);
+        if (loaded.isPresent()) {
+            put(loaded.get());
+        } else {
+            emails.put(email, Optional.empty());
+        }
+        return loaded.map(UserProfileCache::publicView);
+    }
+
+    /**
+     * Returns whatever the cache already knows about a set of users, without loading.
+     *
+     * @param userIds The IDs of the users
+     * @return Map of userId to cached profile (empty for known misses); uncached ids are absent
+     */
+    public Map<String, Optional<User>> getAllCachedById(Iterable<String> userIds) {
+        Map<String, Optional<User>> cached = new HashMap<>();
+        for (Map.Entry<String, Optional<User>> entry : profiles.getAllPresent(userIds).entrySet()) {
+            cached.put(entry.getKey(), entry.getValue().map(UserProfileCache::publicView));
+        }
+        return cached;
+    }
+
+    /**
+     * Caches the public view of a user under both its ID and email.
+     *
+     * @param user The user to cache
+     */
+    public void put(User user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        User view = publicView(user);
+        profiles.put(view.getUserId(), Optional.of(view));
+        indexEmail(view);
+    }
+
+    /**
+     * Records that no user exists with the given ID.
+     *
+     * @param userId The ID that was not found
+     */
+    public void putMissing(String userId) {
+        if (userId != null) {
+            profiles.put(userId, Optional.empty());
+        }
+    }
+
+    /**
+     * Drops any cached profile for a user, along with the email it was cached under.
+     *
+     * @param userId The ID of the user
+     */
+    public void invalidate(String userId) {
+        if (userId == null) {
+            return;
+        }
+        Optional<User> cached = profiles.getIfPresent(userId);
+        if (cached != null && cached.isPresent() && cached.get().getEmail() != null) {
+            emails.invalidate(cached.get().getEmail());
+        }
+        profiles.invalidate(userId);
+    }
+
+    /**
+     * Drops any cached entry for an email, including a cached miss.
+     *
+     * @param email The email address
+     */
+    public void invalidateEmail(String email) {
+        if (email != null) {
+            emails.invalidate(email);
+        }
+    }
+
+    private void indexEmail(User user) {
+        if (user.getEmail() != null) {
+            emails.put(user.getEmail(), Optional.of(user.getUserId()));
+        }
+    }
+
+    private static User publicView(User user) {
+        return new User(
+            user.getUserId(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getEmail(),
+            null,
+            user.getCreatedAt(),
+            user.getRoles());
+    }
+
+    /**
+     * Keeps found entries for the full TTL and cached misses for the shorter negative TTL.
+     */
+    private static final class PresenceExpiry<K, V> implements Expiry<K, Optional<V>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        PresenceExpiry(long ttlSeconds, long negativeTtlSeconds) {
+            this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+            this.negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(K key, Optional<V> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.killrvideo.dao;
+
+/**
+ * Published by {@link VideoDao} after a video is saved, updated or deleted.
+ */
+public class VideoChangedEvent {
+    private final String videoId;
+    private final float[] vector;
+    private final boolean deleted;
+
+    public VideoChangedEvent(String videoId, float[] vector, boolean deleted) {
+        this.videoId = videoId;
+        this.vector = vector;
+        this.deleted = deleted;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    /**
+     * The video's embedding, or null if the change did not carry one.
+     */
+    public float[] getVector() {
+        return vector;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -6,7 +6,9 @@ import com.datastax.astra.client.collections.commands.Update;
 import com.datastax.astra.client.collections.commands.options.CollectionFindOneOptions;
 import com.datastax.astra.client.collections.commands.options.CollectionFindOptions;
 import com.datastax.astra.client.collections.definition.documents.Document;
+import com.datastax.astra.client.collections.commands.results.CollectionUpdateResult;
 import com.datastax.astra.client.core.query.Filter;
+import com.datastax.astra.client.core.query.FilterOperator;
 import com.datastax.astra.client.core.query.Filters;
 import com.datastax.astra.client.core.query.Projection;
 import com.datastax.astra.client.core.query.Sort;
@@ -15,11 +17,13 @@ import com.datastax.astra.client.core.vector.DataAPIVector;
 
 import com.killrvideo.dto.Video;
 import com.killrvideo.dto.VideoPlaybackStats;
+import com.killrvideo.dto.VideoUpdateRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -27,18 +31,35 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.time.temporal.ChronoUnit;
 
 @Repository
 public class VideoDao {
     private static final Logger logger = LoggerFactory.getLogger(VideoDao.class);
+
+    // Data API limit on the number of values in a single $in filter
+    private static final int MAX_IN_VALUES = 100;
+
+    // a change is not done until the search outbox has it, so its write is retried
+    private static final int OUTBOX_ATTEMPTS = 3;
+    private static final long OUTBOX_RETRY_DELAY_MS = 100;
+
     private final Collection<Video> videoCollection;
     //private final Collection<Document> videoDocCollection;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VideoOutboxDao outboxDao;
 
     @Autowired
-    public VideoDao(Database killrVideoDatabase) {
+    public VideoDao(Database killrVideoDatabase, ApplicationEventPublisher eventPublisher, VideoOutboxDao outboxDao) {
         this.videoCollection = killrVideoDatabase.getCollection("videos", Video.class);
         //this.videoDocCollection = killrVideoDatabase.getCollection("videos");
+        this.eventPublisher = eventPublisher;
+        this.outboxDao = outboxDao;
         logger.info("Initialized VideoDao with 'videos' collection");
     }
 
@@ -56,6 +77,8 @@ public class VideoDao {
         }
         videoCollection.insertOne(video);
         logger.debug("Saved video with ID: {}", video.getVideoid());
+        recordSearchChange(video.getVideoid());
+        publishChange(video);
         return video;
     }
 
@@ -80,6 +103,108 @@ public class VideoDao {
         }
     }
 
+    /**
+     * Resolves the titles of several videos with one $in query per 100 ids,
+     * projecting only the id and name.
+     *
+     * @param videoIds The IDs of the videos
+     * @return Map of videoId to title, containing only the videos that were found
+     */
+    public Map<String, String> findNamesByVideoIds(java.util.Collection<String> videoIds) {
+        logger.debug("Finding names for {} videos", videoIds.size());
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(videoIds));
+        Map<String, String> names = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_VALUES) {
+            List<String> batch = ids.subList(from, Math.min(from + MAX_IN_VALUES, ids.size()));
+            for (Video video : videoCollection.find(
+                    Filters.in("videoid", batch.toArray()),
+                    new CollectionFindOptions()
+                        .projection(new Projection("videoid", true), new Projection("name", true)))) {
+                names.put(video.getVideoid(), video.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Reads the playback stats of several videos with one $in query per 100 ids,
+     * projecting only the id and stats.
+     *
+     * @param videoIds The IDs of the videos
+     * @return Map of videoId to stats, containing only videos that were found and have stats
+     */
+    public Map<String, VideoPlaybackStats> findStatsByVideoIds(java.util.Collection<String> videoIds) {
+        logger.debug("Finding stats for {} videos", videoIds.size());
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(videoIds));
+        Map<String, VideoPlaybackStats> stats = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_VALUES) {
+            List<String> batch = ids.subList(from, Math.min(from + MAX_IN_VALUES, ids.size()));
+            for (Video video : videoCollection.find(
+                    Filters.in("videoid", batch.toArray()),
+                    new CollectionFindOptions()
+                        .projection(new Projection("videoid", true), new Projection("stats", true)))) {
+                if (video.getStats() != null) {
+                    stats.put(video.getVideoid(), video.getStats());
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Loads several videos with one $in query per 100 ids.
+     *
+     * @param videoIds The IDs of the videos
+     * @return The videos that were found, in the order of the requested IDs
+     */
+    public List<Video> findByVideoIds(List<String> videoIds) {
+        logger.debug("Finding {} videos by ID", videoIds.size());
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(videoIds));
+        Map<String, Video> found = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_VALUES) {
+            List<String> batch = ids.subList(from, Math.min(from + MAX_IN_VALUES, ids.size()));
+            for (Video video : videoCollection.find(Filters.in("videoid", batch.toArray()), new CollectionFindOptions())) {
+                found.put(video.getVideoid(), video);
+            }
+        }
+        List<Video> videos = new ArrayList<>(found.size());
+        for (String id : ids) {
+            Video video = found.get(id);
+            if (video != null) {
+                videos.add(video);
+            }
+        }
+        return videos;
+    }
+
+    /**
+     * Streams the embedding of every video, projecting only the id and vector.
+     *
+     * @param consumer Receives each videoId and its vector; videos without a vector are skipped
+     */
+    public void forEachVideoVector(BiConsumer<String, float[]> consumer) {
+        logger.debug("Scanning video vectors");
+        for (Video video : videoCollection.find(null, new CollectionFindOptions()
+                .projection(new Projection("videoid", true), new Projection("$vector", true)))) {
+            if (video.getVector() != null) {
+                consumer.accept(video.getVideoid(), video.getVector().getEmbeddings());
+            }
+        }
+    }
+
+    /**
+     * Streams the ID of every video, for a full rebuild of the search index.
+     *
+     * @param consumer Receives each video ID
+     */
+    public void forEachVideoId(Consumer<String> consumer) {
+        logger.debug("Scanning video IDs");
+        for (Video video : videoCollection.find(null, new CollectionFindOptions()
+                .projection(new Projection("videoid", true)))) {
+            consumer.accept(video.getVideoid());
+        }
+    }
+
     /**
      * Finds the latest videos, sorted by added date in descending order.
      *
@@ -121,15 +246,43 @@ public class VideoDao {
     }
 
     /**
-     * Updates an existing video document.
+     * Applies a user's edits to a video with a partial update. Only the edited fields are
+     * written, so maintained fields such as comment_count and the stored $vector are never
+     * overwritten from a stale read. The vector is only written when the caller supplies
+     * a new one, and is carried on the change event so in-memory indexes stay current.
      *
-     * @param video The video to update
-     * @throws IllegalArgumentException if video ID is null
+     * @param videoId The ID of the video
+     * @param changes The edited fields; null fields are left unchanged
+     * @param vector The re-computed embedding when the edit changed it, or null
      */
-    public void update(Video video) {
-    	String videoid = video.getVideoid();
-        logger.debug("Updating video with ID: {}", videoid);
-        videoCollection.replaceOne(Filters.eq("videoid", videoid), video);
+    public void update(String videoId, VideoUpdateRequest changes, float[] vector) {
+        Update update = new Update();
+        boolean changed = false;
+        if (vector != null) {
+            update.set("$vector", new DataAPIVector(vector));
+            changed = true;
+        }
+        if (changes.getName() != null) {
+            update.set("name", changes.getName());
+            changed = true;
+        }
+        if (changes.getDescription() != null) {
+            update.set("description", changes.getDescription());
+            changed = true;
+        }
+        if (changes.getTags() != null) {
+            update.set("tags", changes.getTags());
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+
+        logger.debug("Updating video with ID: {}", videoId);
+        videoCollection.updateOne(Filters.eq("videoid", videoId), update);
+        recordSearchChange(videoId);
+        // a null vector leaves the video's entry in the similarity index as it is
+        eventPublisher.publishEvent(new VideoChangedEvent(videoId, vector, false));
     }
 
     //public void updateViews(String videoId, long views, Instant lastViewed) {
@@ -141,6 +294,84 @@ public class VideoDao {
             	.set("stats.views", stats.getViews()));
     }
 
+    /**
+     * Atomically adjusts the maintained comment counter of a video.
+     *
+     * @param videoId The ID of the video
+     * @param delta Amount to add, negative to decrement
+     */
+    public void incrementCommentCount(String videoId, long delta) {
+        logger.debug("Adjusting comment count for video with ID: {} by {}", videoId, delta);
+        videoCollection.updateOne(Filters.eq("videoid", videoId),
+            new Update().inc("comment_count", (double) delta));
+    }
+
+    /**
+     * Atomically adjusts the maintained rating counters of a video.
+     *
+     * @param videoId The ID of the video
+     * @param countDelta Change in the number of ratings
+     * @param totalDelta Change in the sum of the ratings
+     */
+    public void adjustRatingTotals(String videoId, int countDelta, long totalDelta) {
+        logger.debug("Adjusting rating totals for video with ID: {} by {} ratings, {} points",
+            videoId, countDelta, totalDelta);
+        videoCollection.updateOne(Filters.eq("videoid", videoId),
+            new Update()
+                .inc("stats.ratingCount", (double) countDelta)
+                .inc("stats.ratingTotal", (double) totalDelta));
+    }
+
+    /**
+     * Overwrites the rating counters of a video, used by the one-time migration that
+     * fills them for ratings written before they were maintained.
+     *
+     * @param videoId The ID of the video
+     * @param totals The aggregated ratings of the video
+     */
+    public void setRatingTotals(String videoId, RatingTotals totals) {
+        videoCollection.updateOne(Filters.eq("videoid", videoId),
+            new Update()
+                .set("stats.ratingCount", totals.getCount())
+                .set("stats.ratingTotal", totals.getTotal()));
+    }
+
+    /**
+     * Overwrites the comment counter of a video, used when reconciling drift. The write
+     * only applies if the counter still holds the value the caller read, so an increment
+     * that lands in between is never lost.
+     *
+     * @param videoId The ID of the video
+     * @param expected The counter value the caller read; 0 also matches a missing counter
+     * @param commentCount The actual number of comments
+     * @return true if the counter was written, false if it changed since it was read
+     */
+    public boolean setCommentCount(String videoId, long expected, long commentCount) {
+        logger.debug("Setting comment count for video with ID: {} from {} to {}", videoId, expected, commentCount);
+        Filter current = expected == 0
+            ? Filters.or(Filters.eq("comment_count", 0), new Filter("comment_count", FilterOperator.EXISTS, false))
+            : Filters.eq("comment_count", expected);
+        CollectionUpdateResult result = videoCollection.updateOne(
+            Filters.and(Filters.eq("videoid", videoId), current),
+            new Update().set("comment_count", commentCount));
+        return result.getMatchedCount() != null && result.getMatchedCount() > 0;
+    }
+
+    /**
+     * Streams every video's maintained comment counter.
+     *
+     * @return Map of videoId to stored comment count
+     */
+    public Map<String, Long> findAllCommentCounts() {
+        logger.debug("Reading comment counts for all videos");
+        Map<String, Long> counts = new HashMap<>();
+        for (Video video : videoCollection.find(null, new CollectionFindOptions()
+                .projection(new Projection("videoid", true), new Projection("comment_count", true)))) {
+            counts.put(video.getVideoid(), video.getCommentCount());
+        }
+        return counts;
+    }
+
     /**
      * Deletes a video by its ID.
      *
@@ -149,6 +380,8 @@ public class VideoDao {
     public void deleteById(String videoId) {
         logger.debug("Deleting video with ID: {}", videoId);
         videoCollection.deleteOne(Filters.eq("videoid", videoId));
+        recordSearchChange(videoId);
+        eventPublisher.publishEvent(new VideoChangedEvent(videoId, null, true));
     }
 
     /**
@@ -239,6 +472,41 @@ public class VideoDao {
             .toList();
     }
     
+    /**
+     * Queues a video for the search indexer. Written after the change itself, so the
+     * indexer never reads the video before the change lands. A failed write is retried,
+     * which at worst bumps the version twice, and then fails the request, so a change is
+     * never silently missing from the index. Only changes to what the index serves are
+     * recorded, not view counts or comment counters.
+     */
+    private void recordSearchChange(String videoId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                outboxDao.recordChange(videoId);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= OUTBOX_ATTEMPTS) {
+                    logger.error("Could not record search index change for video {}: {}", videoId, e.getMessage());
+                    throw e;
+                }
+                logger.warn("Recording search index change for video {} failed on attempt {}: {}",
+                    videoId, attempt, e.getMessage());
+                try {
+                    Thread.sleep(OUTBOX_RETRY_DELAY_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void publishChange(Video video) {
+        DataAPIVector vector = video.getVector();
+        eventPublisher.publishEvent(new VideoChangedEvent(video.getVideoid(),
+            vector == null ? null : vector.getEmbeddings(), false));
+    }
+
     private Video getVideoFromDoc(Document doc) {
     	Video video = new Video();
     	
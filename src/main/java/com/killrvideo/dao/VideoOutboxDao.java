@@ -0,0 +1,144 @@
+package com.killrvideo.dao;
+
+import com.datastax.astra.client.databases.Database;
+import com.datastax.astra.client.collections.Collection;
+import com.datastax.astra.client.collections.commands.Update;
+import com.datastax.astra.client.collections.commands.options.CollectionFindOptions;
+import com.datastax.astra.client.collections.commands.options.CollectionUpdateOneOptions;
+import com.datastax.astra.client.collections.definition.documents.Document;
+import com.datastax.astra.client.core.query.Filter;
+import com.datastax.astra.client.core.query.FilterOperator;
+import com.datastax.astra.client.core.query.Filters;
+import com.datastax.astra.client.core.query.Sort;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox of video changes still to be applied to the search index, kept in the
+ * {@code videos_outbox} collection.
+ *
+ * There is one document per video, keyed by videoid, so repeated changes to a video
+ * coalesce into a single pending entry. Each change increments the document's version
+ * counter with $inc, so versions of a video only ever grow, whichever instance records
+ * the change; the indexer uses the version as the search document's external version.
+ * Indexing clears the pending state only if the version is still the one that was
+ * indexed, so a change that arrives while the video is being indexed is never lost.
+ * The document, and with it the counter, outlives the pending state.
+ */
+@Repository
+public class VideoOutboxDao {
+    private static final Logger logger = LoggerFactory.getLogger(VideoOutboxDao.class);
+
+    private final Collection<Document> outboxCollection;
+
+    @Autowired
+    public VideoOutboxDao(Database killrVideoDatabase) {
+        this.outboxCollection = killrVideoDatabase.getCollection("videos_outbox");
+        logger.info("Initialized VideoOutboxDao with 'videos_outbox' collection");
+    }
+
+    /**
+     * A video with changes that are not in the search index yet.
+     *
+     * @param videoId The ID of the changed video
+     * @param version Version stamped by the latest change
+     * @param createdAt Time of the oldest change not yet indexed
+     * @param attempts Failed indexing attempts since the latest change
+     */
+    public record Entry(String videoId, long version, Instant createdAt, int attempts) {
+    }
+
+    /**
+     * Records that a video changed: increments its version and makes it due now.
+     *
+     * @param videoId The ID of the changed video
+     */
+    public void recordChange(String videoId) {
+        Instant now = Instant.now();
+        // created_at marks the oldest change not yet indexed, so it is only set when absent
+        outboxCollection.updateOne(
+            Filters.and(Filters.eq("_id", videoId), new Filter("created_at", FilterOperator.EXISTS, false)),
+            new Update().set("created_at", now));
+        outboxCollection.updateOne(Filters.eq("_id", videoId),
+            new Update()
+                .inc("version", 1.0)
+                .set("attempts", 0)
+                .set("next_attempt_at", now)
+                .setOnInsert("created_at", now),
+            new CollectionUpdateOneOptions().upsert(true));
+    }
+
+    /**
+     * Finds pending entries that are due for indexing, oldest change first. Indexed
+     * entries have no next_attempt_at and never match.
+     *
+     * The Data API sorts in memory and refuses once more than about 10,000 entries are
+     * due, e.g. right after a full reindex has queued every video; the entries are then
+     * fetched unsorted until the backlog has shrunk.
+     *
+     * @param limit Maximum number of entries to return
+     * @return Due entries, sorted by created_at when the backlog allows
+     */
+    public List<Entry> findDue(int limit) {
+        Filter due = Filters.lte("next_attempt_at", Instant.now());
+        try {
+            return toEntries(outboxCollection.find(due,
+                new CollectionFindOptions().sort(Sort.ascending("created_at")).limit(limit)));
+        } catch (RuntimeException e) {
+            logger.warn("Could not fetch the outbox oldest first, fetching unsorted: {}", e.getMessage());
+            return toEntries(outboxCollection.find(due, new CollectionFindOptions().limit(limit)));
+        }
+    }
+
+    private static List<Entry> toEntries(Iterable<Document> docs) {
+        List<Entry> entries = new ArrayList<>();
+        for (Document doc : docs) {
+            Long version = doc.getLong("version");
+            Integer attempts = doc.getInteger("attempts");
+            Instant createdAt = doc.getInstant("created_at");
+            entries.add(new Entry(doc.getString("_id"),
+                version == null ? 0 : version,
+                createdAt == null ? Instant.now() : createdAt,
+                attempts == null ? 0 : attempts));
+        }
+        return entries;
+    }
+
+    /**
+     * Clears the pending state once the given version is indexed, keeping the version
+     * counter. A newer change leaves the entry pending.
+     *
+     * @param videoId The ID of the indexed video
+     * @param version The version that was indexed
+     */
+    public void acknowledge(String videoId, long version) {
+        outboxCollection.updateOne(
+            Filters.and(Filters.eq("_id", videoId), Filters.eq("version", version)),
+            new Update()
+                .unset("next_attempt_at")
+                .unset("created_at")
+                .set("attempts", 0));
+    }
+
+    /**
+     * Postpones an entry after a failed attempt. A newer change resets the entry instead.
+     *
+     * @param entry The entry that failed
+     * @param nextAttemptAt Earliest time of the next attempt
+     */
+    public void scheduleRetry(Entry entry, Instant nextAttemptAt) {
+        outboxCollection.updateOne(
+            Filters.and(Filters.eq("_id", entry.videoId()), Filters.eq("version", entry.version())),
+            new Update()
+                .set("attempts", entry.attempts() + 1)
+                .set("next_attempt_at", nextAttemptAt));
+    }
+}
@@ -1,97 +1,148 @@
 package com.killrvideo.dao;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import org.apache.hc.client5.http.auth.AuthScope;
-import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
-import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
-import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
-import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.core5.http.HttpHost;
-import org.apache.hc.core5.ssl.SSLContextBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.opensearch.client.json.jackson.JacksonJsonpMapper;
-import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
 import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.Time;
+import org.opensearch.client.opensearch._types.VersionType;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.BulkResponse;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
 import org.opensearch.client.opensearch.core.search.Hit;
-import org.opensearch.client.transport.OpenSearchTransport;
+import org.opensearch.client.opensearch.core.search.Pit;
 
-import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
+import jakarta.annotation.PreDestroy;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.killrvideo.config.OpenSearchProperties;
 import com.killrvideo.dto.Video;
 
+/**
+ * Video search against the OpenSearch index. Calls are non-blocking, bounded by the
+ * configured request timeout, and guarded by a circuit breaker so that an OpenSearch
+ * outage costs callers nothing but a fast {@link SearchUnavailableException}.
+ *
+ * Every call is timed in {@code killrvideo.opensearch.requests}, tagged by operation and
+ * outcome, with a percentile histogram.
+ *
+ * Deep result pages are read with {@code search_after} rather than from/size, so a page
+ * costs the same however far in it is. From the second page on they are read from a point
+ * in time, which keeps the pages consistent while the index changes. Points in time are
+ * closed on the last page and when a cursor outlives the maximum lifetime; one a client
+ * abandons is closed by OpenSearch after the keep-alive. This instance keeps at most
+ * max-open-pits of them, and reads further pages from the live index beyond that.
+ */
 @Repository
 public class VideoSearchDao {
-	
-	private static final Logger logger = LoggerFactory.getLogger(VideoDao.class);
-
-	private static String indexName;
-	
-	private OpenSearchClient client;
-	
-	public VideoSearchDao() {
-        String opensearchHost = System.getenv("OPENSEARCH_HOST");
-        String opensearchScheme = "https";
-
-        String username = System.getenv("OPENSEARCH_USERNAME");
-        String password = System.getenv("OPENSEARCH_PASSWORD");
-
-        indexName = "videos";
-        int opensearchPort = 0;
-
-        if (System.getenv("OPENSEARCH_PORT") != null) {
-        	opensearchPort = Integer.parseInt(System.getenv("OPENSEARCH_PORT"));
-        } else {
-        	opensearchPort = 9200;
-        }
-        
-        try {
-	    	final HttpHost host = new HttpHost(opensearchScheme, opensearchHost, opensearchPort);
-	        final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-	        final var sslContext = SSLContextBuilder.create().loadTrustMaterial(null, (chains, authType) -> true).build();
-	        
-	        credentialsProvider.setCredentials(
-	            new AuthScope(host),
-	            new UsernamePasswordCredentials(username, password.toCharArray())
-	        );
-	
-	        OpenSearchTransport transport = ApacheHttpClient5TransportBuilder
-        		.builder(host)
-        		.setMapper(new JacksonJsonpMapper())
-                .setHttpClientConfigCallback(httpClientBuilder -> {
-
-                    // Disable SSL/TLS verification as our local testing clusters use self-signed certificates
-                    final var tlsStrategy = ClientTlsStrategyBuilder.create()
-                        .setSslContext(sslContext)
-                        .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-                        .build();
-
-                    final var connectionManager = PoolingAsyncClientConnectionManagerBuilder.create().setTlsStrategy(tlsStrategy).build();
-
-                    return httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider).setConnectionManager(connectionManager);
-                })
-        		.build();
-
-	        client = new OpenSearchClient(transport);
-	        
-        } catch (Exception ex) {
-        	logger.error("Unable to connect to OpenSearch: {}", ex.getMessage());
-        }
-	}
-	
-	public Optional<List<Video>> searchVideos(String text, int limit) {
-        List<Video> returnVal = new ArrayList<>();
-		
+
+	private static final Logger logger = LoggerFactory.getLogger(VideoSearchDao.class);
+
+	// bytes of a bulk action line, added to the document size when sizing bulk requests
+	private static final int ACTION_LINE_BYTES = 128;
+
+	private final OpenSearchAsyncClient client;
+	private final OpenSearchProperties properties;
+	private final CircuitBreaker circuitBreaker;
+	private final MeterRegistry meterRegistry;
+
+	// points in time opened or extended by this instance, with the time they were last used
+	private final Map<String, Instant> openPits = new ConcurrentHashMap<>();
+
+	@Autowired
+	public VideoSearchDao(Optional<OpenSearchAsyncClient> client, OpenSearchProperties properties,
+			MeterRegistry meterRegistry) {
+		this.client = client.orElse(null);
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+
+		OpenSearchProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+		this.circuitBreaker = new CircuitBreaker("opensearch", breaker.isEnabled(),
+			breaker.getFailureThreshold(), breaker.getOpenMs(), meterRegistry);
+
+		meterRegistry.gaugeMapSize("killrvideo.opensearch.pit.open", List.of(), openPits);
+
+		if (this.client == null) {
+			logger.warn("OpenSearch host is not configured, video search is disabled");
+		}
+	}
+
+	@PreDestroy
+	public void closeOpenPits() {
+		if (client == null || openPits.isEmpty()) {
+			return;
+		}
+		List<String> pitIds = new ArrayList<>(openPits.keySet());
+		openPits.clear();
+		try {
+			await(execute("pit.delete", () -> client.deletePit(d -> d.pitId(pitIds))));
+		} catch (SearchUnavailableException e) {
+			logger.debug("Could not close {} points in time: {}", pitIds.size(), e.getMessage());
+		}
+	}
+
+	/**
+	 * One page of search results.
+	 *
+	 * @param videos The videos on this page, in relevance order
+	 * @param page The page number, starting at 1
+	 * @param next Cursor for the following page, or null on the last page
+	 */
+	public record SearchPage(List<Video> videos, int page, SearchCursor next) {
+	}
+
+	/**
+	 * One write to the search index. A null video deletes the document.
+	 *
+	 * @param videoId The ID of the video, used as the document ID
+	 * @param video The video to index, or null to delete it
+	 * @param version External version; OpenSearch ignores a write older than the document
+	 */
+	public record IndexAction(String videoId, Video video, long version) {
+	}
+
+	public boolean isConfigured() {
+		return client != null;
+	}
+
+	/**
+	 * Full-text search on video descriptions.
+	 *
+	 * @param text The search text
+	 * @param limit Maximum number of hits
+	 * @return Future completed with the matching videos in relevance order, or failed with
+	 *         {@link SearchUnavailableException}
+	 */
+	public CompletableFuture<List<Video>> searchVideosAsync(String text, int limit) {
 		Query searchQuery = Query.of(q -> q
                 .match(m -> m
                     .field("description")
@@ -99,22 +150,335 @@ public class VideoSearchDao {
                 )
             );
 
-		try {
-			SearchResponse<Video> resp = client.search(s -> s
-				.index(indexName)
+		return execute("search", () -> client.search(s -> s
+				.index(properties.getIndex())
 				.size(limit)
 				.query(searchQuery)
-				, Video.class);
+				, Video.class))
+			.thenApply(VideoSearchDao::sources);
+	}
 
-			for (Hit<Video> hit : resp.hits().hits()) {
-				returnVal.add(hit.source());
+	/**
+	 * Applies index and delete actions with one {@code _bulk} request. Writes use
+	 * {@code external_gte} versions, so a version replaces documents the loader indexed
+	 * without one, and writes rejected as version conflicts count as applied, because the
+	 * index already holds a newer version.
+	 *
+	 * @param actions The actions to apply
+	 * @return Future completed with the failure reason for each video that was not applied,
+	 *         or failed with {@link SearchUnavailableException} if the request itself failed
+	 */
+	public CompletableFuture<Map<String, String>> bulkAsync(List<IndexAction> actions) {
+		List<BulkOperation> operations = new ArrayList<>(actions.size());
+		for (IndexAction action : actions) {
+			if (action.video() == null) {
+				operations.add(BulkOperation.of(o -> o.delete(d -> d
+					.index(properties.getIndex())
+					.id(action.videoId())
+					.version(action.version())
+					.versionType(VersionType.ExternalGte))));
+			} else {
+				operations.add(BulkOperation.of(o -> o.index(i -> i
+					.index(properties.getIndex())
+					.id(action.videoId())
+					.version(action.version())
+					.versionType(VersionType.ExternalGte)
+					.document(action.video()))));
 			}
+		}
+
+		return execute("bulk", () -> client.bulk(b -> b.operations(operations)))
+			.thenApply(VideoSearchDao::failures);
+	}
+
+	/**
+	 * Blocking form of {@link #bulkAsync}.
+	 *
+	 * @throws SearchUnavailableException if the request fails, times out or the circuit is open
+	 */
+	public Map<String, String> bulk(List<IndexAction> actions) {
+		return await(bulkAsync(actions));
+	}
+
+	/**
+	 * Estimates the bytes an action adds to a bulk request body.
+	 */
+	public int estimateBytes(IndexAction action) {
+		if (action.video() == null || client == null
+				|| !(client._transport().jsonpMapper() instanceof JacksonJsonpMapper mapper)) {
+			return ACTION_LINE_BYTES;
+		}
+		ObjectMapper objectMapper = mapper.objectMapper();
+		try {
+			return ACTION_LINE_BYTES + objectMapper.writeValueAsBytes(action.video()).length;
+		} catch (JsonProcessingException e) {
+			return ACTION_LINE_BYTES;
+		}
+	}
+
+	/**
+	 * Reads one page of full-text search results on video descriptions, ordered by score
+	 * and then by the tiebreaker field.
+	 *
+	 * @param text The search text
+	 * @param size Number of videos per page
+	 * @param after Cursor returned with the previous page, or null for the first page
+	 * @return Future completed with the page, failed with {@link IllegalArgumentException}
+	 *         if the cursor belongs to another query or has expired, or with
+	 *         {@link SearchUnavailableException}
+	 */
+	public CompletableFuture<SearchPage> searchVideosPageAsync(String text, int size, SearchCursor after) {
+		String queryHash = SearchCursor.hash(text);
+		OpenSearchProperties.Pagination pagination = properties.getPagination();
+		if (after != null) {
+			if (!after.getQueryHash().equals(queryHash)) {
+				return CompletableFuture.failedFuture(new IllegalArgumentException("Page state belongs to a different query"));
+			}
+			if (after.getPitId() != null && after.getPitCreatedAt()
+					.plusSeconds(pagination.getMaxLifetimeSeconds()).isBefore(Instant.now())) {
+				closePit(after.getPitId());
+				return CompletableFuture.failedFuture(new IllegalArgumentException("Search cursor expired"));
+			}
+		}
+
+		CompletableFuture<SearchCursor> position;
+		if (after == null || after.getPitId() != null) {
+			position = CompletableFuture.completedFuture(after);
+		} else {
+			// most searches never get past the first page, so a point in time is only opened for the second
+			position = openPit().thenApply(pitId -> pitId == null ? after : new SearchCursor(pitId, Instant.now(),
+				after.getQueryHash(), after.getPage(), after.getScore(), after.getTiebreaker()));
+		}
+		return position.thenCompose(cursor -> searchPage(text, size, queryHash, cursor));
+	}
+
+	/**
+	 * Blocking form of {@link #searchVideosPageAsync}.
+	 *
+	 * @throws IllegalArgumentException if the cursor belongs to another query or has expired
+	 * @throws SearchUnavailableException if the search fails, times out or the circuit is open
+	 */
+	public SearchPage searchVideosPage(String text, int size, SearchCursor after) {
+		return await(searchVideosPageAsync(text, size, after));
+	}
+
+	public CircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
 
-		} catch (Exception ex) {
-			// TODO Auto-generated catch block
-			ex.printStackTrace();
+	/**
+	 * Runs one OpenSearch call through the circuit breaker, the request timeout and the timer.
+	 */
+	<T> CompletableFuture<T> execute(String operation, Call<T> call) {
+		if (client == null) {
+			return CompletableFuture.failedFuture(new SearchUnavailableException("OpenSearch is not configured"));
 		}
+		if (!circuitBreaker.tryAcquire()) {
+			return CompletableFuture.failedFuture(new SearchUnavailableException("OpenSearch circuit is open"));
+		}
+
+		Timer.Sample sample = Timer.start(meterRegistry);
+		CompletableFuture<T> future;
+		try {
+			future = call.start();
+		} catch (IOException | RuntimeException e) {
+			future = CompletableFuture.failedFuture(e);
+		}
+
+		return future
+			.orTimeout(properties.getTimeouts().getRequestMs(), TimeUnit.MILLISECONDS)
+			.handle((result, error) -> {
+				Throwable cause = unwrap(error);
+				String outcome = cause == null ? "success" : cause instanceof TimeoutException ? "timeout" : "error";
+				sample.stop(Timer.builder("killrvideo.opensearch.requests")
+					.tag("operation", operation)
+					.tag("outcome", outcome)
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+
+				// a rejected request means the cluster answered, so it does not count against the circuit
+				if (cause == null || (cause instanceof OpenSearchException e && e.status() < 500)) {
+					circuitBreaker.onSuccess();
+				} else {
+					circuitBreaker.onFailure();
+				}
+				if (cause != null) {
+					logger.warn("OpenSearch {} failed with {}: {}", operation, outcome, cause.getMessage());
+					throw new SearchUnavailableException("OpenSearch " + operation + " " + outcome, cause);
+				}
+				return result;
+			});
+	}
+
+	private CompletableFuture<SearchPage> searchPage(String text, int size, String queryHash, SearchCursor after) {
+		OpenSearchProperties.Pagination pagination = properties.getPagination();
+		String pitId = after == null ? null : after.getPitId();
+		String keepAlive = pagination.getKeepAliveSeconds() + "s";
+		int page = after == null ? 1 : after.getPage() + 1;
+		if (pitId != null) {
+			openPits.put(pitId, Instant.now());
+		}
+
+		Query searchQuery = Query.of(q -> q
+				.match(m -> m
+					.field("description")
+					.query(FieldValue.of(text))
+				)
+			);
+
+		// one extra hit tells whether there is a next page
+		return execute("search.page", () -> client.search(s -> {
+				s.size(size + 1)
+					.query(searchQuery)
+					.sort(o -> o.score(c -> c.order(SortOrder.Desc)))
+					.sort(o -> o.field(f -> f.field(pagination.getTiebreakerField()).order(SortOrder.Asc)))
+					.trackTotalHits(t -> t.enabled(false));
+				if (pitId != null) {
+					s.pit(Pit.of(p -> p.id(pitId).keepAlive(keepAlive)));
+				} else {
+					s.index(properties.getIndex());
+				}
+				if (after != null) {
+					s.searchAfter(FieldValue.of(after.getScore()), FieldValue.of(after.getTiebreaker()));
+				}
+				return s;
+			}, Video.class))
+			.handle((response, error) -> {
+				if (error != null) {
+					Throwable cause = unwrap(error);
+					if (pitId != null && cause.getCause() instanceof OpenSearchException e && e.status() == 404) {
+						openPits.remove(pitId);
+						throw new IllegalArgumentException("Search cursor expired");
+					}
+					throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+				}
+
+				List<Hit<Video>> hits = response.hits().hits();
+				String currentPitId = response.pitId() != null ? response.pitId() : pitId;
+				if (currentPitId != null && !currentPitId.equals(pitId)) {
+					openPits.remove(pitId);
+					openPits.put(currentPitId, Instant.now());
+				}
+
+				List<Video> videos = new ArrayList<>();
+				for (Hit<Video> hit : hits.subList(0, Math.min(size, hits.size()))) {
+					if (hit.source() != null) {
+						videos.add(hit.source());
+					}
+				}
+
+				SearchCursor next = null;
+				if (hits.size() > size && hits.get(size - 1).sort().size() >= 2) {
+					List<FieldValue> sort = hits.get(size - 1).sort();
+					next = new SearchCursor(currentPitId, currentPitId == null ? null : after.getPitCreatedAt(),
+						queryHash, page, sortScore(sort.get(0)), sortKey(sort.get(1)));
+				} else if (currentPitId != null) {
+					closePit(currentPitId);
+				}
+				return new SearchPage(videos, page, next);
+			});
+	}
+
+	/**
+	 * Opens a point in time on the index.
+	 *
+	 * @return Future completed with the point in time ID, or with null if this instance
+	 *         already has the maximum open or the point in time could not be created
+	 */
+	private CompletableFuture<String> openPit() {
+		OpenSearchProperties.Pagination pagination = properties.getPagination();
+		// OpenSearch has already closed points in time that sat idle past the keep-alive
+		Instant idleCutoff = Instant.now().minusSeconds(pagination.getKeepAliveSeconds());
+		openPits.values().removeIf(lastUsed -> lastUsed.isBefore(idleCutoff));
+		if (openPits.size() >= pagination.getMaxOpenPits()) {
+			logger.debug("{} points in time open, reading the next page from the live index", openPits.size());
+			return CompletableFuture.completedFuture(null);
+		}
+
+		return execute("pit.create", () -> client.createPit(r -> r
+				.index(properties.getIndex())
+				.keepAlive(Time.of(t -> t.time(pagination.getKeepAliveSeconds() + "s")))))
+			.handle((response, error) -> {
+				if (error != null) {
+					return null;
+				}
+				openPits.put(response.pitId(), Instant.now());
+				return response.pitId();
+			});
+	}
+
+	private void closePit(String pitId) {
+		openPits.remove(pitId);
+		execute("pit.delete", () -> client.deletePit(d -> d.pitId(pitId)));
+	}
+
+	private static double sortScore(FieldValue value) {
+		if (value.isDouble()) {
+			return value.doubleValue();
+		}
+		return value.isLong() ? value.longValue() : Double.parseDouble(value._toJsonString());
+	}
+
+	private static String sortKey(FieldValue value) {
+		return value.isString() ? value.stringValue() : value._toJsonString();
+	}
+
+	/**
+	 * Waits for a call started by {@link #execute}, rethrowing its failure unwrapped.
+	 */
+	static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SearchUnavailableException("Interrupted while waiting for OpenSearch", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SearchUnavailableException unavailable) {
+				throw unavailable;
+			}
+			if (e.getCause() instanceof IllegalArgumentException invalid) {
+				throw invalid;
+			}
+			throw new SearchUnavailableException("OpenSearch call failed", e.getCause());
+		}
+	}
+
+	private static List<Video> sources(SearchResponse<Video> response) {
+		List<Video> videos = new ArrayList<>();
+		for (Hit<Video> hit : response.hits().hits()) {
+			if (hit.source() != null) {
+				videos.add(hit.source());
+			}
+		}
+		return videos;
+	}
+
+	private static Map<String, String> failures(BulkResponse response) {
+		Map<String, String> failures = new HashMap<>();
+		if (!response.errors()) {
+			return failures;
+		}
+		for (BulkResponseItem item : response.items()) {
+			// 409 means the index already holds a newer version of the video
+			if (item.error() != null && item.status() != 409) {
+				failures.put(item.id(), item.status() + " " + item.error().reason());
+			}
+		}
+		return failures;
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+			error = error.getCause();
+		}
+		return error;
+	}
 
-		return Optional.of(returnVal);
+	/**
+	 * Starts an asynchronous client call; the client's methods declare IOException.
+	 */
+	@FunctionalInterface
+	interface Call<T> {
+		CompletableFuture<T> start() throws IOException;
 	}
 }
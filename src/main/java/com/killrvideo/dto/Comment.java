@@ -1,5 +1,6 @@
 package com.killrvideo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Instant;
 
@@ -17,8 +18,10 @@ public class Comment {
     
     private Instant timestamp;
     
+    // null until the sentiment pipeline has scored the comment
     @JsonProperty("sentiment_score")
-    private float sentimentScore;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Float sentimentScore;
 
     // Additional metadata fields
     @JsonProperty("user_name")
@@ -49,7 +52,7 @@ public class Comment {
         return userName;
     }
 
-    public float getSentimentScore() {
+    public Float getSentimentScore() {
     	return sentimentScore;
     }
     
@@ -78,7 +81,7 @@ public class Comment {
         this.userName = userName;
     }
     
-    public void setSentimentScore(float score) {
+    public void setSentimentScore(Float score) {
     	this.sentimentScore = score;
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.killrvideo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Instant;
 
@@ -17,8 +18,9 @@ public class CommentResponse {
     
     private Instant timestamp;
     
+    // null while the comment is still being scored
     @JsonProperty("sentiment_score")
-    private float sentimentScore;
+    private Float sentimentScore;
 
     private String firstName;
 
@@ -28,6 +30,10 @@ public class CommentResponse {
     @JsonProperty("user_name")
     private String userName;  // Combination of user's first and last name
 
+    // only set on per-user comment history
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String videoTitle;
+
     // Getters
     public String getCommentId() {
         return commentId;
@@ -61,10 +67,14 @@ public class CommentResponse {
         return lastName;
     }
 
-    public float getSentimentScore() {
+    public Float getSentimentScore() {
         return sentimentScore;
     }
 
+    public String getVideoTitle() {
+        return videoTitle;
+    }
+
     // Setters
     public void setCommentId(String commentId) {
         this.commentId = commentId;
@@ -98,10 +108,14 @@ public class CommentResponse {
         this.lastName = lastName;
     }
 
-    public void setSentimentScore(float sentimentScore) {
+    public void setSentimentScore(Float sentimentScore) {
         this.sentimentScore = sentimentScore;
     }
 
+    public void setVideoTitle(String videoTitle) {
+        this.videoTitle = videoTitle;
+    }
+
     // Static factory method to create from Comment
     public static CommentResponse fromComment(Comment comment) {
         CommentResponse response = new CommentResponse();
@@ -118,6 +132,17 @@ public class CommentResponse {
             comment.setUserName(userId.substring(0, firstDashIndex));
         }
         response.setUserName(comment.getUserName());
+
+        // user_name is denormalized as "first last" at write time
+        String userName = comment.getUserName();
+        int spaceIndex = userName.indexOf(' ');
+        if (spaceIndex > 0) {
+            response.setFirstName(userName.substring(0, spaceIndex));
+            response.setLastName(userName.substring(spaceIndex + 1));
+        } else {
+            response.setFirstName(userName);
+            response.setLastName("");
+        }
         // Additional fields will be set by the service layer
         return response;
     }
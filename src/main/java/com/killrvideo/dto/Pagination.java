@@ -1,5 +1,7 @@
 package com.killrvideo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class Pagination {
     // "currentPage":1,"pageSize":10,"totalItems":0,"totalPages":0
     private int totalPages;
@@ -7,6 +9,10 @@ public class Pagination {
     private int totalItems;
     private int currentPage;
 
+    // opaque continuation token for the next page, absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextPageState;
+
     public Pagination(int currentPage, int totalPages, int pageSize, int totalItems) {
         this.currentPage = currentPage;
         this.totalPages = totalPages;
@@ -26,6 +32,26 @@ public class Pagination {
         }
     }
 
+    /**
+     * Metadata for one page of a keyset-paginated listing, where the total is only known
+     * up to the current page.
+     *
+     * @param page Number of this page, starting at 1
+     * @param pageSize Requested page size
+     * @param itemsOnPage Number of items on this page
+     * @param nextPageState Continuation token for the next page, or null on the last page
+     */
+    public static Pagination ofKeysetPage(int page, int pageSize, int itemsOnPage, String nextPageState) {
+        boolean hasMore = nextPageState != null;
+        Pagination pagination = new Pagination(
+                page,
+                hasMore ? page + 1 : page,
+                pageSize,
+                (page - 1) * pageSize + itemsOnPage);
+        pagination.setNextPageState(nextPageState);
+        return pagination;
+    }
+
     public int getCurrentPage() {
         return currentPage;
     }
@@ -41,4 +67,12 @@ public class Pagination {
     public int getTotalItems() {
         return totalItems;
     }
+
+    public String getNextPageState() {
+        return nextPageState;
+    }
+
+    public void setNextPageState(String nextPageState) {
+        this.nextPageState = nextPageState;
+    }
 }
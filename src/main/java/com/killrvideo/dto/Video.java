@@ -47,6 +47,10 @@ public class Video {
     
     private VideoPlaybackStats stats;
 
+    // maintained with $inc as comments are added and removed
+    @JsonProperty("comment_count")
+    private long commentCount;
+
 //    @JsonProperty("last_viewed")
     //private Instant lastViewed;
 //    private String lastViewed;
@@ -111,6 +115,10 @@ public class Video {
     	return stats;
     }
 
+    public long getCommentCount() {
+        return commentCount;
+    }
+
     public String getYoutubeId() {
         return youtubeId;
     }
@@ -176,6 +184,10 @@ public class Video {
     	this.stats = stats;
     }
 
+    public void setCommentCount(long commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public void setYoutubeId(String youtubeId) {
         this.youtubeId = youtubeId;
     }
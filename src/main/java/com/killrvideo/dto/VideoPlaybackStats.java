@@ -6,6 +6,9 @@ public class VideoPlaybackStats {
 	private int totalPlayTime;
 	private int completeViews;
 	private int uniqueViewers;
+	// maintained with $inc as ratings are added, changed and removed
+	private int ratingCount;
+	private long ratingTotal;
 	
 	public VideoPlaybackStats() {
 		views = 0;
@@ -53,4 +56,20 @@ public class VideoPlaybackStats {
 	public void setUniqueViewers(int uniqueViewers) {
 		this.uniqueViewers = uniqueViewers;
 	}
+	
+	public int getRatingCount() {
+		return ratingCount;
+	}
+	
+	public void setRatingCount(int ratingCount) {
+		this.ratingCount = ratingCount;
+	}
+	
+	public long getRatingTotal() {
+		return ratingTotal;
+	}
+	
+	public void setRatingTotal(long ratingTotal) {
+		this.ratingTotal = ratingTotal;
+	}
 }
@@ -209,6 +209,7 @@ public class VideoResponse {
         response.setUploadDate(video.getAddedDate());
         response.setVector(video.getVector());
         response.setYoutubeVideoId(video.getYoutubeId());
+        response.setCommentCount(video.getCommentCount());
         
         // some videos don't have stats
         try {
@@ -217,7 +218,7 @@ public class VideoResponse {
         	System.out.println("Video " + video.getVideoid() + " does not have stats.");
         }
         // Additional fields will be set by the service layer
-        // username, viewCount, commentCount, processingStatus
+        // username, viewCount, processingStatus
         return response;
     }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.killrvideo.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +10,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
@@ -17,6 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.lang.NonNull;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
@@ -24,9 +25,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationChecker tokenRevocationChecker;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -34,17 +41,31 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String email = jwtUtils.getUserNameFromJwtToken(jwt);
-                logger.debug("Processing JWT token for user: {}", email);
+            // verify once; repeat tokens are served from the verifier's cache
+            Optional<Claims> claims = jwt != null ? jwtVerifier.verify(jwt) : Optional.empty();
+            if (claims.isPresent()) {
+                // the principal is rebuilt from verified claims, no user lookup needed
+                UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims.get());
+
+                if (userDetails == null) {
+                    // tokens issued before the userid and roles claims were added
+                    String email = claims.get().getSubject();
+                    logger.debug("Loading user for legacy JWT token: {}", email);
+                    userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(email);
+                }
+
+                if (tokenRevocationChecker.isActive(userDetails.getUserId(), userDetails.getAuthorities())) {
+                    logger.debug("Processing JWT token for user: {}", userDetails.getUsername());
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("Successfully set authentication in SecurityContext");
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    logger.debug("Successfully set authentication in SecurityContext");
+                } else {
+                    logger.warn("Rejecting JWT token for inactive user: {}", userDetails.getUserId());
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -1,76 +1,81 @@
 package com.killrvideo.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
-
-import javax.crypto.SecretKey;
+import java.util.List;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${killrvideo.jwt.secret}")
-    private String jwtSecret;
+    public static final String USER_ID_CLAIM = "userid";
+    public static final String ROLES_CLAIM = "roles";
 
     @Value("${killrvideo.jwt.expiration-ms}")
     private int jwtExpirationMs;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
-
-    private SecretKey getSigningKeySecretKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
-    }
+    @Autowired
+    private JwtVerifier jwtVerifier;
 
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        // the principal travels in the token so requests can be authenticated without a user lookup
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
         return Jwts.builder()
                 .subject(userPrincipal.getUsername())
+                .claim(USER_ID_CLAIM, userPrincipal.getUserId())
+                .claim(ROLES_CLAIM, roles)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
+                .signWith(jwtVerifier.getSigningKey())
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKeySecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return jwtVerifier.verify(token)
+                .map(Claims::getSubject)
+                .orElse(null);
     }
 
-    public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKeySecretKey())
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
-        } catch (SignatureException e) {
-            logger.error("Invalid JWT signature: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+    /**
+     * Rebuilds the authenticated principal from a token's verified claims.
+     *
+     * @param claims Claims returned by {@link JwtVerifier#verify(String)}
+     * @return The principal, or null for tokens issued before the claims were embedded
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        List<String> roleNames = new ArrayList<>();
+        if (roles != null) {
+            for (Object role : roles) {
+                roleNames.add(String.valueOf(role));
+            }
         }
+        return UserDetailsImpl.fromClaims(userId, claims.getSubject(), roleNames);
+    }
 
-        return false;
+    public boolean validateJwtToken(String authToken) {
+        boolean valid = jwtVerifier.verify(authToken).isPresent();
+        if (!valid) {
+            logger.debug("JWT token failed verification");
+        }
+        return valid;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.killrvideo.security;
+
+/**
+ * Thrown when the password hashing executor is saturated and a request is shed
+ * instead of queueing behind other BCrypt work.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
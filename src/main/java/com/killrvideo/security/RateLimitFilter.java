@@ -0,0 +1,187 @@
+package com.killrvideo.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.killrvideo.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets for write and expensive endpoints. Runs after
+ * {@link AuthTokenFilter}, so authenticated requests are limited per userId and
+ * anonymous ones (such as login) per client IP.
+ *
+ * Each bucket is a single AtomicLong holding the GCRA theoretical arrival time, updated
+ * with a CAS loop: no locks, and no allocation for clients already being tracked.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Limit> limits = new ArrayList<>();
+    private Cache<String, AtomicLong> buckets;
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxKeys())
+            .expireAfterAccess(Duration.ofSeconds(properties.getIdleSeconds()))
+            .build();
+
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            limits.add(new Limit(policy,
+                meterRegistry.counter("killrvideo.ratelimit.rejected", "policy", policy.getName())));
+        }
+        logger.info("Rate limiting {} with {} policies, max tracked clients: {}",
+            properties.isEnabled() ? "enabled" : "disabled", limits.size(), properties.getMaxKeys());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || limits.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Limit limit = match(request);
+        if (limit != null) {
+            String key = limit.policy.getName() + ':' + clientKey(request);
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong());
+            long waitNanos = limit.acquire(bucket, System.nanoTime());
+            if (waitNanos > 0) {
+                limit.rejected.increment();
+                logger.debug("Rate limit {} exceeded for {}", limit.policy.getName(), key);
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Limit match(HttpServletRequest request) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        for (Limit limit : limits) {
+            RateLimitProperties.Policy policy = limit.policy;
+            if ((policy.getMethod() == null || policy.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && PATH_MATCHER.match(policy.getPath(), path)) {
+                return limit;
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl user) {
+            return "user:" + user.getUserId();
+        }
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(forwardedFor)) {
+                int comma = forwardedFor.indexOf(',');
+                return "ip:" + (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit exceeded, retry after " + retryAfterSeconds + "s");
+        body.put("path", request.getServletPath());
+
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * A compiled policy. The bucket holds the theoretical arrival time (TAT) of the next
+     * request; a request is allowed while the TAT is no more than a full burst ahead of now.
+     */
+    private static final class Limit {
+        private final RateLimitProperties.Policy policy;
+        private final Counter rejected;
+        private final long intervalNanos;
+        private final long burstNanos;
+
+        Limit(RateLimitProperties.Policy policy, Counter rejected) {
+            this.policy = policy;
+            this.rejected = rejected;
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / policy.getRefillPerSecond());
+            this.burstNanos = intervalNanos * Math.max(1, policy.getCapacity());
+        }
+
+        /**
+         * Takes one token.
+         *
+         * @return 0 if the request is allowed, otherwise nanoseconds until a token is available
+         */
+        long acquire(AtomicLong bucket, long now) {
+            while (true) {
+                long tat = bucket.get();
+                // a fresh or long-idle bucket starts full
+                long base = tat == 0 || tat - now < 0 ? now : tat;
+                long next = base + intervalNanos;
+                long allowAt = next - burstNanos;
+                if (allowAt - now > 0) {
+                    return allowAt - now;
+                }
+                if (bucket.compareAndSet(tat, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.killrvideo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.killrvideo.dao.UserChangedEvent;
+import com.killrvideo.dao.UserDao;
+import com.killrvideo.dto.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Optional check that the user behind a stateless token still exists and still holds
+ * every role the token claims, so a deleted or demoted user loses access within one TTL.
+ * Roles are read from the database, not the profile cache, and cached here briefly so at
+ * most one lookup per user per TTL reaches it; a change made on this instance drops the
+ * entry at once. Disabled by default, in which case tokens are trusted until they expire.
+ */
+@Component
+public class TokenRevocationChecker {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationChecker.class);
+
+    private final boolean enabled;
+    // current roles per user; an empty set means the user no longer exists
+    private final Cache<String, Set<String>> currentRoles;
+
+    @Autowired
+    private UserDao userDao;
+
+    public TokenRevocationChecker(
+            @Value("${killrvideo.jwt.revocation-check.enabled:false}") boolean enabled,
+            @Value("${killrvideo.jwt.revocation-check.ttl-seconds:60}") long ttlSeconds,
+            @Value("${killrvideo.jwt.revocation-check.max-size:100000}") long maxSize) {
+        this.enabled = enabled;
+        this.currentRoles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        logger.info("Token revocation check enabled: {}", enabled);
+    }
+
+    /**
+     * @param userId The userid claim of a verified token
+     * @param tokenRoles The roles the token grants
+     * @return true if the token's user is still active and holds all of the token's roles,
+     *         or the check is disabled
+     */
+    public boolean isActive(String userId, Collection<? extends GrantedAuthority> tokenRoles) {
+        if (!enabled) {
+            return true;
+        }
+        // a failed lookup throws and is not cached, so the request is rejected but the next is retried
+        Set<String> roles = currentRoles.get(userId, id -> userDao.findRolesByUserId(id)
+                .map(User::getRoles)
+                .map(UserDetailsImpl::roleNames)
+                .orElse(Set.of()));
+        if (roles.isEmpty()) {
+            return false;
+        }
+        for (GrantedAuthority role : tokenRoles) {
+            if (!roles.contains(role.getAuthority())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (user != null && user.getUserId() != null) {
+            currentRoles.invalidate(user.getUserId());
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class UserDetailsImpl implements UserDetails {
     private static final long serialVersionUID = 1L;
@@ -29,7 +31,9 @@ public class UserDetailsImpl implements UserDetails {
     }
 
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("USER"));
+        List<GrantedAuthority> authorities = roleNames(user.getRoles()).stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
 
         return new UserDetailsImpl(
                 user.getUserId(),
@@ -38,6 +42,38 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    /**
+     * Parses the comma-separated roles stored on a user record. A user without
+     * stored roles is a plain USER.
+     */
+    public static Set<String> roleNames(String roles) {
+        if (roles == null || roles.isBlank()) {
+            return Collections.singleton("USER");
+        }
+        Set<String> names = new TreeSet<>();
+        for (String role : roles.split(",")) {
+            if (!role.isBlank()) {
+                names.add(role.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Builds a principal from verified JWT claims. Token-based principals carry no password.
+     */
+    public static UserDetailsImpl fromClaims(String userId, String email, List<String> roles) {
+        List<GrantedAuthority> authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+
+        return new UserDetailsImpl(
+                userId,
+                email,
+                null,
+                authorities);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -5,20 +5,25 @@ import java.util.Optional;
 import com.killrvideo.dao.UserDao;
 import com.killrvideo.dto.User;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
     @Autowired
     private UserDao userDao;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<User> userOpt = userDao.findByEmail(username);
+        Optional<User> userOpt = userDao.findCredentialsByEmail(username);
 
         if (!userOpt.isPresent()) {
             //System.out.println("User Not Found with email: " + username);
@@ -31,4 +36,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         
         return UserDetailsImpl.build(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Called after a successful login whose stored hash uses a different BCrypt cost
+     * than the one configured, so the password is upgraded transparently.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserDetailsImpl details = (UserDetailsImpl) user;
+        try {
+            userDao.updatePassword(details.getUserId(), newPassword);
+            logger.info("Rehashed password for user: {}", details.getUserId());
+        } catch (Exception e) {
+            // the login itself already succeeded; the next one will try again
+            logger.warn("Could not rehash password for user {}: {}", details.getUserId(), e.getMessage());
+            return user;
+        }
+        return new UserDetailsImpl(details.getUserId(), details.getEmail(), newPassword, details.getAuthorities());
+    }
+}
@@ -0,0 +1,83 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.CommentDao;
+import com.killrvideo.dao.VideoDao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Periodically corrects drift in the per-video comment counters that are
+ * maintained with $inc on the comment write path.
+ */
+@Service
+public class CommentCountReconciliationJob {
+    private static final Logger logger = LoggerFactory.getLogger(CommentCountReconciliationJob.class);
+
+    @Autowired
+    private CommentDao commentDao;
+
+    @Autowired
+    private VideoDao videoDao;
+
+    @Value("${killrvideo.comments.count-reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.comments.count-reconciliation.grace-seconds:60}")
+    private long graceSeconds;
+
+    /**
+     * Recounts comments per video and rewrites only the counters that differ.
+     * Both scans project a single field, so the cost is one pass over each collection.
+     * Counters are read before comments are counted and rewritten only if they still hold
+     * the value read, so a video that gained or lost comments during the scan is skipped
+     * and left to the next run. Videos commented on within the grace window before the scan,
+     * or during it, are skipped as well: their comment may already be counted while its
+     * $inc has not landed, and rewriting the counter then would count it twice.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.comments.count-reconciliation.initial-delay-ms:300000}",
+        fixedDelayString = "${killrvideo.comments.count-reconciliation.interval-ms:86400000}")
+    public void reconcileCommentCounts() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Instant settledBefore = Instant.now().minus(Duration.ofSeconds(graceSeconds));
+            Map<String, Long> storedCounts = videoDao.findAllCommentCounts();
+            Map<String, Long> actualCounts = commentDao.countAllByVideo();
+            Set<String> recentlyCommented = commentDao.findVideoIdsCommentedSince(settledBefore);
+
+            int corrected = 0;
+            int skipped = 0;
+            for (Map.Entry<String, Long> stored : storedCounts.entrySet()) {
+                long actual = actualCounts.getOrDefault(stored.getKey(), 0L);
+                if (stored.getValue() != actual) {
+                    if (recentlyCommented.contains(stored.getKey())) {
+                        skipped++;
+                        continue;
+                    }
+                    if (videoDao.setCommentCount(stored.getKey(), stored.getValue(), actual)) {
+                        corrected++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+            logger.info("Reconciled comment counts for {} videos, corrected {}, skipped {} recently changed",
+                storedCounts.size(), corrected, skipped);
+        } catch (Exception e) {
+            logger.error("Error reconciling comment counts: {}", e.getMessage());
+        }
+    }
+}
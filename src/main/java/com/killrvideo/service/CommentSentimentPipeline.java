@@ -0,0 +1,240 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.CommentDao;
+import com.killrvideo.dto.Comment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background pipeline that scores comment sentiment off the request path.
+ * Comment IDs go onto a bounded queue; workers drain it in micro-batches, load the
+ * batch with one query, score it and write each score back with a partial update.
+ * When the queue is full new comments are dropped rather than blocking the caller.
+ */
+@Service
+public class CommentSentimentPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(CommentSentimentPipeline.class);
+
+    @Autowired
+    private CommentDao commentDao;
+
+    @Autowired
+    private SentimentScorer sentimentScorer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.comments.sentiment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.comments.sentiment.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${killrvideo.comments.sentiment.workers:2}")
+    private int workerCount;
+
+    @Value("${killrvideo.comments.sentiment.batch-size:50}")
+    private int batchSize;
+
+    @Value("${killrvideo.comments.sentiment.linger-ms:200}")
+    private long lingerMs;
+
+    @Value("${killrvideo.comments.sentiment.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${killrvideo.comments.sentiment.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<Work> queue;
+    private ScheduledExecutorService retryScheduler;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private Counter enqueuedCounter;
+    private Counter droppedCounter;
+    private Counter scoredCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+    private DistributionSummary batchSizeSummary;
+
+    private record Work(String commentId, int attempt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // a batch is loaded with a single $in filter, which the Data API caps at 100 values
+        batchSize = Math.min(batchSize, 100);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sentiment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("killrvideo.sentiment.queue.size", queue, BlockingQueue::size);
+        enqueuedCounter = meterRegistry.counter("killrvideo.sentiment.enqueued");
+        droppedCounter = meterRegistry.counter("killrvideo.sentiment.dropped");
+        scoredCounter = meterRegistry.counter("killrvideo.sentiment.scored");
+        retriedCounter = meterRegistry.counter("killrvideo.sentiment.retried");
+        failedCounter = meterRegistry.counter("killrvideo.sentiment.failed");
+        batchTimer = meterRegistry.timer("killrvideo.sentiment.batch.duration");
+        batchSizeSummary = meterRegistry.summary("killrvideo.sentiment.batch.size");
+
+        if (!enabled) {
+            logger.info("Comment sentiment pipeline disabled");
+            return;
+        }
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "sentiment-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Started comment sentiment pipeline with {} workers, queue capacity: {}, batch size: {}",
+            workerCount, queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues a comment for scoring without ever blocking.
+     *
+     * @param commentId The ID of the saved comment
+     * @return true if queued, false if the pipeline is disabled or saturated
+     */
+    public boolean enqueue(String commentId) {
+        if (!running || commentId == null) {
+            return false;
+        }
+        if (queue.offer(new Work(commentId, 1))) {
+            enqueuedCounter.increment();
+            return true;
+        }
+        droppedCounter.increment();
+        logger.warn("Sentiment queue full, dropping comment: {}", commentId);
+        return false;
+    }
+
+    private void runWorker() {
+        List<Work> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Work first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // linger briefly so concurrent submissions share one round trip
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Work next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in sentiment worker: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<Work> batch) {
+        batchSizeSummary.record(batch.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Map<String, Work> pending = new HashMap<>();
+        for (Work work : batch) {
+            pending.put(work.commentId(), work);
+        }
+
+        try {
+            List<Comment> comments = commentDao.findTextByCommentIds(pending.keySet());
+            List<String> texts = new ArrayList<>(comments.size());
+            for (Comment comment : comments) {
+                texts.add(comment.getComment());
+            }
+            List<Float> scores = sentimentScorer.scoreAll(texts);
+
+            for (int i = 0; i < comments.size(); i++) {
+                String commentId = comments.get(i).getCommentId();
+                try {
+                    commentDao.updateSentimentScore(commentId, scores.get(i));
+                    pending.remove(commentId);
+                    scoredCounter.increment();
+                } catch (Exception e) {
+                    logger.warn("Could not store sentiment for comment {}: {}", commentId, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Sentiment batch of {} failed: {}", batch.size(), e.getMessage());
+        } finally {
+            sample.stop(batchTimer);
+        }
+
+        // anything left was not found yet or failed to write
+        pending.values().forEach(this::retry);
+    }
+
+    private void retry(Work work) {
+        if (work.attempt() >= maxAttempts) {
+            failedCounter.increment();
+            logger.error("Giving up on sentiment for comment {} after {} attempts", work.commentId(), work.attempt());
+            return;
+        }
+        retriedCounter.increment();
+        long delay = retryBackoffMs * (1L << (work.attempt() - 1));
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(new Work(work.commentId(), work.attempt() + 1))) {
+                droppedCounter.increment();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
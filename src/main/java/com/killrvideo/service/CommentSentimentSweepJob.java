@@ -0,0 +1,71 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.CommentDao;
+import com.killrvideo.dto.Comment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Background job that re-queues comments the sentiment pipeline never scored,
+ * such as those dropped while its queue was full or lost on a restart.
+ */
+@Service
+public class CommentSentimentSweepJob {
+    private static final Logger logger = LoggerFactory.getLogger(CommentSentimentSweepJob.class);
+
+    @Autowired
+    private CommentDao commentDao;
+
+    @Autowired
+    private CommentSentimentPipeline sentimentPipeline;
+
+    @Value("${killrvideo.comments.sentiment.sweep.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.comments.sentiment.sweep.batch-size:500}")
+    private int batchSize;
+
+    @Value("${killrvideo.comments.sentiment.sweep.grace-ms:300000}")
+    private long graceMs;
+
+    /**
+     * Queues one batch of unscored comments per run, skipping comments younger than
+     * the grace period. Stops early when the pipeline is saturated; the rest are
+     * picked up by a later run.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.comments.sentiment.sweep.initial-delay-ms:120000}",
+        fixedDelayString = "${killrvideo.comments.sentiment.sweep.interval-ms:600000}")
+    public void sweepUnscoredComments() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            List<Comment> comments = commentDao.findUnscored(Instant.now().minusMillis(graceMs), batchSize);
+            if (comments.isEmpty()) {
+                logger.debug("No unscored comments");
+                return;
+            }
+
+            int queued = 0;
+            for (Comment comment : comments) {
+                if (!sentimentPipeline.enqueue(comment.getCommentId())) {
+                    break;
+                }
+                queued++;
+            }
+            logger.info("Re-queued {} of {} unscored comments for sentiment scoring", queued, comments.size());
+        } catch (Exception e) {
+            logger.error("Error sweeping unscored comments: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dto.Comment;
+import com.killrvideo.dto.CommentResponse;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of newly submitted comments to Server-Sent Event subscribers.
+ * Each video has a topic holding its live subscribers and a small ring buffer of
+ * recent comments, so reconnecting clients can resume from their Last-Event-ID.
+ * Idle connections hold no request thread. Every subscriber has its own queue, drained
+ * in order on a virtual thread, so replayed comments always precede live ones and a
+ * slow client only delays itself; one that falls too far behind is dropped and can
+ * resume from its Last-Event-ID.
+ */
+@Service
+public class CommentStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(CommentStreamService.class);
+
+    private final Map<String, VideoTopic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${killrvideo.comments.stream.buffer-size:50}")
+    private int bufferSize;
+
+    @Value("${killrvideo.comments.stream.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${killrvideo.comments.stream.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${killrvideo.comments.stream.topic-idle-ms:900000}")
+    private long topicIdleMs;
+
+    @Value("${killrvideo.comments.stream.max-pending:100}")
+    private int maxPending;
+
+    /**
+     * Registers a subscriber for a video's comments, replaying any buffered
+     * comments newer than the supplied Last-Event-ID.
+     *
+     * @param videoId The ID of the video
+     * @param lastEventId The last comment ID the client received, or null
+     * @return The emitter bound to the client connection
+     * @throws IllegalStateException if the subscriber limit has been reached
+     */
+    public SseEmitter subscribe(String videoId, String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many comment stream subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        int[] replayed = new int[1];
+        // joins inside compute so heartbeat() cannot drop the topic while the subscriber is added
+        VideoTopic topic = topics.compute(videoId, (id, existing) -> {
+            VideoTopic joined = existing != null ? existing : new VideoTopic();
+            replayed[0] = joined.join(subscriber, lastEventId);
+            return joined;
+        });
+        Runnable unsubscribe = () -> {
+            if (topic.subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        logger.debug("Comment stream subscriber added for video: {}, replaying: {}", videoId, replayed[0]);
+        return emitter;
+    }
+
+    /**
+     * Publishes a newly saved comment to every subscriber of its video.
+     * Never blocks the caller: the comment is queued and sent on virtual threads.
+     *
+     * @param comment The saved comment
+     */
+    public void publish(Comment comment) {
+        CommentResponse event = CommentResponse.fromComment(comment);
+        topics.compute(comment.getVideoId(), (id, existing) -> {
+            VideoTopic topic = existing != null ? existing : new VideoTopic();
+            topic.append(event);
+            return topic;
+        });
+    }
+
+    /**
+     * Keeps idle connections alive through proxies, detects dead clients and
+     * drops topics that have neither subscribers nor recent activity.
+     */
+    @Scheduled(fixedDelayString = "${killrvideo.comments.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        topics.forEach((videoId, topic) -> {
+            if (topic.subscribers.isEmpty()) {
+                // re-checked inside compute, which serialises with subscribe() and publish()
+                topics.computeIfPresent(videoId, (id, current) ->
+                    current.subscribers.isEmpty() && now - current.lastActivity > topicIdleMs ? null : current);
+                return;
+            }
+            // queued like comments, so a client that stopped reading is dropped once it falls behind
+            topic.subscribers.forEach(Subscriber::keepAlive);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        fanOutExecutor.shutdown();
+    }
+
+    /**
+     * A client connection with its own queue of pending events. At most one virtual
+     * thread drains it at a time, so events go out in the order they were queued.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<CommentResponse> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean keepAliveDue = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(CommentResponse comment) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                close(new IOException("Subscriber fell more than " + maxPending + " events behind"));
+                return;
+            }
+            pending.add(comment);
+            schedule();
+        }
+
+        void keepAlive() {
+            if (!keepAliveDue.compareAndSet(false, true)) {
+                // the previous keep-alive was never sent: the client stopped reading
+                close(new IOException("Subscriber is not reading"));
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                fanOutExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                CommentResponse comment;
+                while (!closed && (comment = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(SseEmitter.event()
+                        .id(comment.getCommentId())
+                        .name("comment")
+                        .data(comment, MediaType.APPLICATION_JSON));
+                }
+                if (!closed && keepAliveDue.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(e);
+            } finally {
+                draining.set(false);
+            }
+            // an event queued after the last poll found no drainer running
+            if (!pending.isEmpty() || keepAliveDue.get()) {
+                schedule();
+            }
+        }
+
+        private void close(Exception cause) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            logger.debug("Dropping comment stream subscriber: {}", cause.getMessage());
+            emitter.completeWithError(cause);
+        }
+    }
+
+    private final class VideoTopic {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final ArrayDeque<CommentResponse> recent = new ArrayDeque<>();
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        void touch() {
+            lastActivity = System.currentTimeMillis();
+        }
+
+        /**
+         * Buffers a comment and queues it for every subscriber. Taken under the same lock
+         * as {@link #join}, so every comment reaches a subscriber either by replay or live,
+         * never both, and replayed comments are queued first.
+         */
+        synchronized void append(CommentResponse comment) {
+            if (recent.size() >= bufferSize) {
+                recent.removeFirst();
+            }
+            recent.addLast(comment);
+            touch();
+            subscribers.forEach(subscriber -> subscriber.enqueue(comment));
+        }
+
+        /**
+         * Adds a subscriber and queues the buffered comments it missed.
+         *
+         * @return The number of comments replayed
+         */
+        synchronized int join(Subscriber subscriber, String lastEventId) {
+            List<CommentResponse> missed = since(lastEventId);
+            missed.forEach(subscriber::enqueue);
+            subscribers.add(subscriber);
+            touch();
+            return missed.size();
+        }
+
+        /**
+         * Comments buffered after the given event ID. An unknown ID means the client
+         * fell further behind than the buffer, so it gets everything still buffered.
+         * Deduplicated by comment ID.
+         */
+        private List<CommentResponse> since(String lastEventId) {
+            if (lastEventId == null || lastEventId.isEmpty()) {
+                return List.of();
+            }
+            Map<String, CommentResponse> missed = new LinkedHashMap<>();
+            for (CommentResponse comment : recent) {
+                missed.put(comment.getCommentId(), comment);
+                if (lastEventId.equals(comment.getCommentId())) {
+                    missed.clear();
+                }
+            }
+            return new ArrayList<>(missed.values());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.CommentDao;
+import com.killrvideo.dao.UserDao;
+import com.killrvideo.dto.Comment;
+import com.killrvideo.dto.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Background job that backfills the denormalized user_name on comments written
+ * before it was populated, so the comment read path never has to look users up.
+ */
+@Service
+public class CommentUserNameRepairJob {
+    private static final Logger logger = LoggerFactory.getLogger(CommentUserNameRepairJob.class);
+
+    @Autowired
+    private CommentDao commentDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${killrvideo.comments.user-name-repair.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.comments.user-name-repair.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Repairs one batch of comments per run. Every comment by a resolved user is
+     * fixed in a single update, so a batch usually clears far more than batchSize.
+     * Comments whose user no longer exists are marked so later runs move past them;
+     * a failed user lookup aborts the run so no comment is marked on its account.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.comments.user-name-repair.initial-delay-ms:60000}",
+        fixedDelayString = "${killrvideo.comments.user-name-repair.interval-ms:3600000}")
+    public void repairMissingUserNames() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            List<Comment> comments = commentDao.findMissingUserName(batchSize);
+            if (comments.isEmpty()) {
+                logger.debug("No comments missing user_name");
+                return;
+            }
+
+            Set<String> userIds = comments.stream()
+                .map(Comment::getUserId)
+                .filter(userId -> userId != null)
+                .collect(Collectors.toSet());
+            Map<String, User> users = userDao.findByUserIds(userIds);
+
+            for (User user : users.values()) {
+                commentDao.setMissingUserName(user.getUserId(), user.getFirstName() + " " + user.getLastName());
+            }
+
+            List<String> unresolved = comments.stream()
+                .filter(comment -> comment.getUserId() == null || !users.containsKey(comment.getUserId()))
+                .map(Comment::getCommentId)
+                .toList();
+            if (!unresolved.isEmpty()) {
+                commentDao.markUserNameUnresolved(unresolved);
+            }
+            logger.info("Backfilled user_name on comments for {} of {} users, {} comments unresolvable",
+                users.size(), userIds.size(), unresolved.size());
+        } catch (Exception e) {
+            logger.error("Error repairing comment user names: {}", e.getMessage());
+        }
+    }
+}
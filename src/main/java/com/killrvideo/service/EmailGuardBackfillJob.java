@@ -0,0 +1,45 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.UserDao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Migration that creates email guard documents for accounts registered before the
+ * user_emails collection existed, so duplicate checks on those addresses are
+ * case-insensitive. Off by default; enable it for one start, like the created date
+ * migration. Runs in the background once the application is up and is idempotent,
+ * so an interrupted run can simply be repeated.
+ */
+@Service
+public class EmailGuardBackfillJob {
+    private static final Logger logger = LoggerFactory.getLogger(EmailGuardBackfillJob.class);
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${killrvideo.users.email-guard.backfill.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("email-guard-backfill").start(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int created = userDao.backfillEmailGuards();
+                logger.info("Created {} email guards in {} ms", created, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Error backfilling email guards: {}", e.getMessage());
+            }
+        });
+    }
+}
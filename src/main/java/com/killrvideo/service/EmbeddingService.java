@@ -0,0 +1,214 @@
+package com.killrvideo.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared entry point for text embeddings. Concurrent requests are coalesced: a dispatcher
+ * collects texts for up to the linger time or a full batch, then sends them to the model
+ * in a single {@code embedAll} call and completes each caller's future with its vector.
+ * The number of batches in flight is capped so a slow model applies back-pressure to the
+ * queue instead of opening unbounded connections.
+ */
+@Service
+public class EmbeddingService {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingService.class);
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.embedding.batch.max-size:32}")
+    private int batchSize;
+
+    @Value("${killrvideo.embedding.batch.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${killrvideo.embedding.batch.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Value("${killrvideo.embedding.batch.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${killrvideo.embedding.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private BlockingQueue<Pending> queue;
+    private Semaphore inFlight;
+    private ExecutorService batchExecutor;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private Counter rejectedCounter;
+    private Timer batchTimer;
+    private DistributionSummary batchSizeSummary;
+
+    private record Pending(String text, CompletableFuture<float[]> result) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        inFlight = new Semaphore(maxInFlight);
+        batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        meterRegistry.gauge("killrvideo.embedding.queue.size", queue, BlockingQueue::size);
+        rejectedCounter = meterRegistry.counter("killrvideo.embedding.rejected");
+        batchTimer = meterRegistry.timer("killrvideo.embedding.batch.duration");
+        batchSizeSummary = meterRegistry.summary("killrvideo.embedding.batch.size");
+
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "embedding-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("Started embedding service, batch size: {}, linger: {} ms, max in flight: {}",
+            batchSize, lingerMs, maxInFlight);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        batchExecutor.shutdown();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Embedding service stopped"));
+        }
+    }
+
+    /**
+     * Queues a text for embedding without blocking.
+     *
+     * @param text The text to embed
+     * @return Future completed with the embedding, or failed with
+     *         {@link RejectedExecutionException} if the queue is full
+     */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        if (!running || !queue.offer(new Pending(text, result))) {
+            rejectedCounter.increment();
+            result.completeExceptionally(new RejectedExecutionException("Embedding queue full"));
+        }
+        return result;
+    }
+
+    /**
+     * Embeds a text, waiting at most the configured timeout.
+     *
+     * @param text The text to embed
+     * @return The embedding vector
+     * @throws IllegalStateException if the embedding fails, times out or is rejected
+     */
+    public float[] embed(String text) {
+        try {
+            return embedAsync(text).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while embedding", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Embedding timed out after " + timeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Embedding failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // linger briefly so concurrent callers share one request
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // waiting here lets the queue absorb bursts while the model is saturated
+                inFlight.acquire();
+                batchExecutor.execute(() -> {
+                    try {
+                        processBatch(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in embedding dispatcher: {}", e.getMessage());
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void processBatch(List<Pending> batch) {
+        batchSizeSummary.record(batch.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<TextSegment> segments = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                segments.add(TextSegment.from(pending.text()));
+            }
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            if (embeddings.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " embeddings, got " + embeddings.size());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(embeddings.get(i).vector());
+            }
+        } catch (Exception e) {
+            logger.warn("Embedding batch of {} failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+}
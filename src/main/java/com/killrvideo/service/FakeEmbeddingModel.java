@@ -0,0 +1,58 @@
+package com.killrvideo.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Local stand-in for a real embedding model, for tests and offline development.
+ * Each text maps to a deterministic unit vector seeded from its bytes, so equal texts
+ * always embed identically but similarity between different texts means nothing.
+ */
+public class FakeEmbeddingModel implements EmbeddingModel {
+    private final int dimension;
+
+    public FakeEmbeddingModel(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        List<Embedding> embeddings = new ArrayList<>(segments.size());
+        for (TextSegment segment : segments) {
+            embeddings.add(Embedding.from(vectorFor(segment.text())));
+        }
+        return Response.from(embeddings);
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    private float[] vectorFor(String text) {
+        long seed = 1125899906842597L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            seed = 31 * seed + b;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,148 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.VideoDao;
+import com.killrvideo.dao.VideoSearchDao;
+import com.killrvideo.dto.Video;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hybrid video search: the OpenSearch BM25 query and the Data API vector query run in
+ * parallel and their rankings are merged with reciprocal rank fusion, where a video scores
+ * {@code 1 / (k + rank)} in each list it appears in. RRF needs no score normalization
+ * between the two engines, and videos found by both legs rise to the top.
+ *
+ * Each leg has its own timeout. A leg that times out or fails contributes nothing, so a
+ * slow search cluster or embedding model degrades the results to the other leg instead of
+ * failing the request.
+ */
+@Service
+public class HybridSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(HybridSearchService.class);
+
+    @Autowired
+    private VideoSearchDao searchDao;
+
+    @Autowired
+    private VideoDao videoDao;
+
+    @Autowired
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.search.hybrid.candidates:50}")
+    private int candidates;
+
+    @Value("${killrvideo.search.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${killrvideo.search.hybrid.lexical-timeout-ms:800}")
+    private long lexicalTimeoutMs;
+
+    @Value("${killrvideo.search.hybrid.vector-timeout-ms:1500}")
+    private long vectorTimeoutMs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs both legs and fuses their results.
+     *
+     * @param query The search text
+     * @param limit Maximum number of videos to return
+     * @return Videos ordered by fused rank, without duplicates
+     * @throws IllegalStateException if neither leg returned results in time
+     */
+    public List<Video> search(String query, int limit) {
+        int perLeg = Math.max(candidates, limit);
+        CompletableFuture<List<Video>> lexical = leg("lexical", lexicalTimeoutMs,
+            searchDao.searchVideosAsync(query, perLeg));
+        CompletableFuture<List<Video>> vector = leg("vector", vectorTimeoutMs, CompletableFuture.supplyAsync(
+            () -> videoDao.searchVideos(queryEmbeddingCache.get(query, embeddingService::embed), perLeg).orElse(List.of()),
+            executor));
+
+        List<Video> lexicalResults = lexical.join();
+        List<Video> vectorResults = vector.join();
+        if (lexicalResults == null && vectorResults == null) {
+            throw new IllegalStateException("No search backend answered in time");
+        }
+        logger.debug("Hybrid search for '{}': {} lexical, {} vector results", query,
+            lexicalResults == null ? "no" : lexicalResults.size(),
+            vectorResults == null ? "no" : vectorResults.size());
+
+        // the Data API copy goes in first so it wins over the search index's copy of a video
+        Map<String, Video> videos = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        fuse(vectorResults, videos, scores);
+        fuse(lexicalResults, videos, scores);
+
+        List<Video> fused = new ArrayList<>(videos.values());
+        fused.sort(Comparator.comparingDouble((Video video) -> scores.get(video.getVideoid())).reversed());
+        return fused.size() > limit ? fused.subList(0, limit) : fused;
+    }
+
+    private void fuse(List<Video> ranked, Map<String, Video> videos, Map<String, Double> scores) {
+        if (ranked == null) {
+            return;
+        }
+        int rank = 0;
+        for (Video video : ranked) {
+            if (video == null || video.getVideoid() == null) {
+                continue;
+            }
+            rank++;
+            videos.putIfAbsent(video.getVideoid(), video);
+            scores.merge(video.getVideoid(), 1.0 / (rrfK + rank), Double::sum);
+        }
+    }
+
+    /**
+     * Bounds one leg. The returned future completes with null when the leg fails or runs out of time.
+     */
+    private CompletableFuture<List<Video>> leg(String name, long timeoutMs, CompletableFuture<List<Video>> search) {
+        return search
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .exceptionally(e -> {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                String outcome = cause instanceof TimeoutException ? "timeout" : "error";
+                meterRegistry.counter("killrvideo.search.hybrid.leg.failed", "leg", name, "outcome", outcome).increment();
+                logger.warn("Hybrid search {} leg {}: {}", name, outcome, cause.getMessage());
+                return null;
+            });
+    }
+}
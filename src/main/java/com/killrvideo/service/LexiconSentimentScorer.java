@@ -0,0 +1,83 @@
+package com.killrvideo.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local, dependency-free scorer based on a small weighted lexicon with
+ * simple negation and intensifier handling. This is the default scorer.
+ */
+@Component
+@ConditionalOnProperty(name = "killrvideo.comments.sentiment.scorer", havingValue = "lexicon", matchIfMissing = true)
+public class LexiconSentimentScorer implements SentimentScorer {
+
+    private static final Map<String, Float> LEXICON = Map.ofEntries(
+        Map.entry("amazing", 3f), Map.entry("awesome", 3f), Map.entry("excellent", 3f),
+        Map.entry("fantastic", 3f), Map.entry("love", 3f), Map.entry("loved", 3f),
+        Map.entry("brilliant", 3f), Map.entry("perfect", 3f), Map.entry("great", 2f),
+        Map.entry("good", 2f), Map.entry("nice", 2f), Map.entry("cool", 2f),
+        Map.entry("like", 1f), Map.entry("liked", 1f), Map.entry("helpful", 2f),
+        Map.entry("useful", 2f), Map.entry("fun", 2f), Map.entry("enjoyed", 2f),
+        Map.entry("thanks", 1f), Map.entry("thank", 1f), Map.entry("interesting", 1f),
+        Map.entry("clear", 1f), Map.entry("best", 3f), Map.entry("beautiful", 3f),
+        Map.entry("bad", -2f), Map.entry("poor", -2f), Map.entry("boring", -2f),
+        Map.entry("hate", -3f), Map.entry("hated", -3f), Map.entry("terrible", -3f),
+        Map.entry("awful", -3f), Map.entry("horrible", -3f), Map.entry("worst", -3f),
+        Map.entry("useless", -2f), Map.entry("wrong", -1f), Map.entry("confusing", -1f),
+        Map.entry("dislike", -2f), Map.entry("annoying", -2f), Map.entry("stupid", -2f),
+        Map.entry("waste", -2f), Map.entry("broken", -2f), Map.entry("slow", -1f),
+        Map.entry("disappointing", -2f), Map.entry("disappointed", -2f), Map.entry("meh", -1f));
+
+    private static final Set<String> NEGATIONS = Set.of(
+        "not", "no", "never", "dont", "don't", "isnt", "isn't", "wasnt", "wasn't", "cant", "can't", "nothing");
+
+    private static final Map<String, Float> INTENSIFIERS = Map.of(
+        "very", 1.5f, "really", 1.5f, "so", 1.3f, "extremely", 2f, "super", 1.5f, "slightly", 0.5f);
+
+    // how many following tokens a negation or intensifier applies to
+    private static final int MODIFIER_WINDOW = 3;
+
+    @Override
+    public float score(String text) {
+        if (text == null || text.isBlank()) {
+            return 0f;
+        }
+
+        String[] tokens = text.toLowerCase(Locale.ROOT).split("[^a-z']+");
+        float total = 0f;
+        int negateFor = 0;
+        float intensity = 1f;
+        int intensifyFor = 0;
+
+        for (String token : tokens) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (NEGATIONS.contains(token)) {
+                negateFor = MODIFIER_WINDOW;
+                continue;
+            }
+            Float boost = INTENSIFIERS.get(token);
+            if (boost != null) {
+                intensity = boost;
+                intensifyFor = MODIFIER_WINDOW;
+                continue;
+            }
+
+            Float weight = LEXICON.get(token);
+            if (weight != null) {
+                float value = weight * (intensifyFor > 0 ? intensity : 1f);
+                total += negateFor > 0 ? -value * 0.75f : value;
+            }
+            negateFor = Math.max(0, negateFor - 1);
+            intensifyFor = Math.max(0, intensifyFor - 1);
+        }
+
+        // squash the unbounded sum into (-1, 1)
+        return (float) (total / Math.sqrt(total * total + 15));
+    }
+}
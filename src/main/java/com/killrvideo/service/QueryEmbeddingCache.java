@@ -0,0 +1,293 @@
+package com.killrvideo.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Caches query embeddings so repeated searches skip the remote embedding call.
+ * Queries are normalized (Unicode NFKC, lower case, collapsed whitespace) before lookup,
+ * so trivially different spellings of a popular query share one entry. Vectors are kept
+ * as compact float arrays, or in direct buffers outside the heap when configured.
+ *
+ * When a persistence file is configured the cache is written to it periodically and on
+ * shutdown, and reloaded at startup, so a restart does not start cold. The file records
+ * the embedding model and dimension it was written with and is discarded when either
+ * no longer matches, so a model change never serves stale vectors.
+ */
+@Service
+public class QueryEmbeddingCache {
+    private static final Logger logger = LoggerFactory.getLogger(QueryEmbeddingCache.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int FILE_MAGIC = 0x4B564543;
+    private static final int FILE_VERSION = 2;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.embedding.query-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${killrvideo.embedding.query-cache.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${killrvideo.embedding.query-cache.off-heap:false}")
+    private boolean offHeap;
+
+    @Value("${killrvideo.embedding.query-cache.persistence-file:}")
+    private String persistenceFile;
+
+    @Value("${killrvideo.embedding.provider:huggingface}")
+    private String provider;
+
+    @Value("${killrvideo.embedding.huggingface.model-id:ibm-granite/granite-embedding-30m-english}")
+    private String huggingFaceModelId;
+
+    @Value("${killrvideo.embedding.onnx.model-path:}")
+    private String onnxModelPath;
+
+    @Value("${killrvideo.embedding.dimension:384}")
+    private int dimension;
+
+    // async, so a miss only inserts a pending future under the map lock and the remote
+    // embedding call runs outside it; concurrent misses on the same query share that future
+    private AsyncCache<String, CachedVector> vectors;
+
+    @PostConstruct
+    public void init() {
+        long ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        vectors = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new RemainingTtl(ttlMillis))
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, vectors, "killrvideo.embedding.query.cache");
+
+        if (!persistenceFile.isEmpty()) {
+            load(Path.of(persistenceFile), ttlMillis);
+        }
+        logger.info("Initialized QueryEmbeddingCache, maxEntries: {}, ttl: {}s, offHeap: {}, persistence: {}",
+            maxEntries, ttlSeconds, offHeap, persistenceFile.isEmpty() ? "none" : persistenceFile);
+    }
+
+    /**
+     * Returns the embedding for a query, computing it once per normalized query.
+     * Failures of the embedder propagate and are not cached.
+     *
+     * @param query The raw search query
+     * @param embedder Computes the embedding of the normalized query
+     * @return A copy of the query's embedding
+     */
+    public float[] get(String query, Function<String, float[]> embedder) {
+        String key = normalize(query);
+        CompletableFuture<CachedVector> created = new CompletableFuture<>();
+        CompletableFuture<CachedVector> future = vectors.get(key, (k, executor) -> created);
+        if (future == created) {
+            // this caller missed, so it computes on its own thread; a failed future is dropped by the cache
+            try {
+                created.complete(store(embedder.apply(key), System.currentTimeMillis()));
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join().toArray();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Normalizes a query into its cache key.
+     */
+    public static String normalize(String query) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    @Scheduled(
+        initialDelayString = "${killrvideo.embedding.query-cache.persist-interval-ms:600000}",
+        fixedDelayString = "${killrvideo.embedding.query-cache.persist-interval-ms:600000}")
+    public void snapshot() {
+        if (!persistenceFile.isEmpty()) {
+            save(Path.of(persistenceFile));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * Identifies the model producing the embeddings, as recorded in the persistence file.
+     */
+    private String model() {
+        return provider + ":" + ("onnx".equals(provider) ? onnxModelPath : huggingFaceModelId);
+    }
+
+    private CachedVector store(float[] vector, long createdAt) {
+        if (!offHeap) {
+            return new HeapVector(vector.clone(), createdAt);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(vector.length * Float.BYTES).order(ByteOrder.nativeOrder());
+        buffer.asFloatBuffer().put(vector);
+        return new DirectVector(buffer, createdAt);
+    }
+
+    private synchronized void save(Path path) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int written = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(model());
+            out.writeInt(dimension);
+            // the synchronous view skips embeddings still being computed
+            for (Map.Entry<String, CachedVector> entry : vectors.synchronous().asMap().entrySet()) {
+                float[] vector = entry.getValue().toArray();
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().createdAt());
+                out.writeInt(vector.length);
+                for (float value : vector) {
+                    out.writeFloat(value);
+                }
+                written++;
+            }
+            out.writeBoolean(false);
+        } catch (IOException e) {
+            logger.warn("Could not write query embedding cache to {}: {}", path, e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote {} query embeddings to {}", written, path);
+        } catch (IOException e) {
+            logger.warn("Could not replace query embedding cache file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void load(Path path, long ttlMillis) {
+        if (!Files.isReadable(path)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                logger.warn("Ignoring query embedding cache file with unknown format: {}", path);
+                return;
+            }
+            String fileModel = in.readUTF();
+            int fileDimension = in.readInt();
+            if (!fileModel.equals(model()) || fileDimension != dimension) {
+                logger.warn("Discarding query embedding cache file {} written for model {} ({} dimensions)",
+                    path, fileModel, fileDimension);
+                in.close();
+                Files.deleteIfExists(path);
+                return;
+            }
+            while (in.readBoolean() && loaded < maxEntries) {
+                String key = in.readUTF();
+                long createdAt = in.readLong();
+                float[] vector = new float[in.readInt()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = in.readFloat();
+                }
+                if (now - createdAt < ttlMillis) {
+                    vectors.synchronous().put(key, store(vector, createdAt));
+                    loaded++;
+                }
+            }
+            logger.info("Loaded {} query embeddings from {}", loaded, path);
+        } catch (IOException e) {
+            logger.warn("Could not read query embedding cache from {}: {}", path, e.getMessage());
+        }
+    }
+
+    private sealed interface CachedVector permits HeapVector, DirectVector {
+        float[] toArray();
+
+        long createdAt();
+    }
+
+    private record HeapVector(float[] values, long createdAt) implements CachedVector {
+        @Override
+        public float[] toArray() {
+            return values.clone();
+        }
+    }
+
+    private record DirectVector(ByteBuffer buffer, long createdAt) implements CachedVector {
+        @Override
+        public float[] toArray() {
+            float[] values = new float[buffer.capacity() / Float.BYTES];
+            buffer.asFloatBuffer().get(values);
+            return values;
+        }
+    }
+
+    /**
+     * Expires each entry a fixed time after its embedding was first computed, which
+     * also holds for entries reloaded from the persistence file.
+     */
+    private static final class RemainingTtl implements Expiry<String, CachedVector> {
+        private final long ttlMillis;
+
+        RemainingTtl(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, CachedVector value, long currentTime) {
+            long remaining = ttlMillis - (System.currentTimeMillis() - value.createdAt());
+            return Duration.ofMillis(Math.max(0, remaining)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedVector value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedVector value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.RatingDao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-time migration that fills the rating count and total kept on each video from the
+ * ratings written before those counters were maintained. Runs in the background once
+ * the application is up; it overwrites the counters with a fresh aggregate, so it can
+ * be repeated and switched off again after a successful run.
+ */
+@Service
+public class RatingTotalsMigrationJob {
+    private static final Logger logger = LoggerFactory.getLogger(RatingTotalsMigrationJob.class);
+
+    @Autowired
+    private RatingDao ratingDao;
+
+    @Value("${killrvideo.ratings.totals-migration.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("rating-totals-migration").start(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int updated = ratingDao.backfillVideoTotals();
+                logger.info("Filled rating totals on {} videos in {} ms", updated, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Error filling video rating totals: {}", e.getMessage());
+            }
+        });
+    }
+}
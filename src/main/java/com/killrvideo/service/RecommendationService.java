@@ -20,6 +20,9 @@ public class RecommendationService {
     @Autowired
     private VideoDao videoDao;
 
+    @Autowired
+    private SimilarVideoIndex similarVideoIndex;
+
     /**
      * Get similar video recommendations based on vector similarity.
      * 
@@ -30,6 +33,11 @@ public class RecommendationService {
     public List<RecommendationResponse> getSimilarVideos(String videoId, int limit) {
         logger.debug("Finding similar videos for videoId: {}, limit: {}", videoId, limit);
 
+        Optional<List<String>> indexed = similarVideoIndex.findSimilar(videoId, limit);
+        if (indexed.isPresent()) {
+            return toRecommendations(videoDao.findByVideoIds(indexed.get()));
+        }
+
         // Get the source video with its vector
         Optional<Video> sourceVideoOpt = videoDao.findByVideoId(videoId, true);
 
@@ -48,10 +56,15 @@ public class RecommendationService {
 
         // Find similar videos using vector search
         // Add 1 to limit because the source video might be included
-        return videoDao.findByVector(sourceVector, limit + 1)
+        return toRecommendations(videoDao.findByVector(sourceVector, limit + 1)
             .stream()
             .filter(video -> !video.getVideoid().equals(videoId)) // Exclude source video
             .limit(limit)
+            .toList());
+    }
+
+    private List<RecommendationResponse> toRecommendations(List<Video> videos) {
+        return videos.stream()
             .map(video -> {
                 RecommendationResponse recommendation = new RecommendationResponse();
                 recommendation.setVideo(VideoResponse.fromVideo(video));
@@ -0,0 +1,33 @@
+package com.killrvideo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores the sentiment of comment text on a scale from -1 (negative) to 1 (positive).
+ * Implementations are selected with killrvideo.comments.sentiment.scorer.
+ */
+public interface SentimentScorer {
+
+    /**
+     * Scores a single text.
+     *
+     * @param text The text to score
+     * @return Sentiment score between -1 and 1
+     */
+    float score(String text);
+
+    /**
+     * Scores a batch of texts. Remote scorers should override this to issue a single call.
+     *
+     * @param texts The texts to score
+     * @return Scores in the same order as the texts
+     */
+    default List<Float> scoreAll(List<String> texts) {
+        List<Float> scores = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            scores.add(score(text));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,278 @@
+package com.killrvideo.service;
+
+import com.datastax.astra.client.core.vector.DataAPIVector;
+import com.killrvideo.dao.VideoChangedEvent;
+import com.killrvideo.dao.VideoDao;
+import com.killrvideo.dto.Video;
+import com.killrvideo.vector.HnswIndex;
+import com.killrvideo.vector.IndexEvaluation;
+import com.killrvideo.vector.VectorEncoding;
+import com.killrvideo.vector.VectorKernels;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory HNSW graph over video embeddings, used to answer related-video and
+ * similar-video queries without a Data API vector search per request.
+ *
+ * The graph is built by a streaming scan of video vectors when the application starts
+ * and rebuilt periodically, which also drops nodes left behind by updates and deletes.
+ * In between, {@link VideoChangedEvent}s keep it current. A small sample of queries is
+ * repeated against the Data API in the background and the overlap is recorded as
+ * {@code killrvideo.similar.index.recall}, so approximation quality can be watched in
+ * production. Vectors are stored off heap, int8-quantized by default, with the exact
+ * floats optionally memory-mapped from a spill directory.
+ *
+ * Until the first build completes, or for a video the index does not know,
+ * {@link #findSimilar} returns empty and callers should use the Data API.
+ */
+@Service
+public class SimilarVideoIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SimilarVideoIndex.class);
+
+    @Autowired
+    private VideoDao videoDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.similar-videos.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.embedding.dimension:384}")
+    private int dimension;
+
+    @Value("${killrvideo.similar-videos.index.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${killrvideo.similar-videos.index.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${killrvideo.similar-videos.index.ef-search:64}")
+    private int efSearch;
+
+    @Value("${killrvideo.similar-videos.index.recall-sample-rate:0.01}")
+    private double recallSampleRate;
+
+    @Value("${killrvideo.similar-videos.index.encoding:int8}")
+    private VectorEncoding encoding;
+
+    @Value("${killrvideo.similar-videos.index.spill-directory:}")
+    private String spillDirectory;
+
+    private final Object swapLock = new Object();
+    private volatile HnswIndex index;
+    private List<VideoChangedEvent> changedDuringBuild;
+    private ExecutorService recallExecutor;
+    private Timer searchTimer;
+    private DistributionSummary recallSummary;
+    private final AtomicBoolean evaluating = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        recallExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry.gauge("killrvideo.similar.index.videos", this, SimilarVideoIndex::indexedVideos);
+        meterRegistry.gauge("killrvideo.similar.index.bytes", this, SimilarVideoIndex::estimatedBytes);
+        meterRegistry.gauge("killrvideo.similar.index.mapped.bytes", this, SimilarVideoIndex::mappedBytes);
+        searchTimer = meterRegistry.timer("killrvideo.similar.index.search.duration");
+        recallSummary = DistributionSummary.builder("killrvideo.similar.index.recall")
+            .description("Overlap between index results and a Data API vector search for the same video")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recallExecutor.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Rebuilds the graph from a streaming scan of the videos collection. Changes that
+     * arrive while the scan runs are replayed onto the new graph before it is swapped in.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.similar-videos.index.initial-delay-ms:0}",
+        fixedDelayString = "${killrvideo.similar-videos.index.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (swapLock) {
+            changedDuringBuild = new ArrayList<>();
+        }
+
+        long start = System.currentTimeMillis();
+        HnswIndex rebuilt = new HnswIndex(dimension, maxConnections, efConstruction, encoding, spillPath());
+        try {
+            videoDao.forEachVideoVector((videoId, vector) -> put(rebuilt, videoId, vector));
+        } catch (Exception e) {
+            logger.error("Error building similar video index: {}", e.getMessage());
+            synchronized (swapLock) {
+                changedDuringBuild = null;
+            }
+            return;
+        }
+
+        synchronized (swapLock) {
+            changedDuringBuild.forEach(event -> apply(rebuilt, event));
+            changedDuringBuild = null;
+            index = rebuilt;
+        }
+        logger.info("Built {} similar video index with {} videos in {} ms using {} kernels",
+            encoding, rebuilt.size(), System.currentTimeMillis() - start, VectorKernels.implementation());
+    }
+
+    @EventListener
+    public void onVideoChanged(VideoChangedEvent event) {
+        if (event.getVideoId() == null) {
+            return;
+        }
+        synchronized (swapLock) {
+            if (index != null) {
+                apply(index, event);
+            }
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(event);
+            }
+        }
+    }
+
+    /**
+     * Finds the videos most similar to an indexed video.
+     *
+     * @param videoId The source video, which is excluded from the results
+     * @param limit Maximum number of results
+     * @return IDs of similar videos, most similar first, or empty if the index cannot
+     *         answer and the caller should query the database
+     */
+    public Optional<List<String>> findSimilar(String videoId, int limit) {
+        HnswIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        float[] vector = current.get(videoId);
+        if (vector == null) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        List<HnswIndex.Result> results = current.search(vector, limit, Math.max(efSearch, limit), videoId);
+        searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<String> ids = new ArrayList<>(results.size());
+        for (HnswIndex.Result result : results) {
+            ids.add(result.key());
+        }
+        if (recallSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < recallSampleRate) {
+            recallExecutor.execute(() -> sampleRecall(videoId, vector, limit, ids));
+        }
+        return Optional.of(ids);
+    }
+
+    /**
+     * Builds a throwaway index per encoding from a sample of the live index and measures
+     * each one's memory, recall@10 and query throughput.
+     *
+     * @param sampleSize Maximum number of vectors to index
+     * @param queries Number of sampled vectors to use as queries
+     * @return One report per encoding
+     * @throws IllegalStateException if the index is not built or an evaluation is already running
+     */
+    public List<IndexEvaluation.Report> evaluateEncodings(int sampleSize, int queries) {
+        HnswIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Similar video index is not built yet");
+        }
+        if (!evaluating.compareAndSet(false, true)) {
+            throw new IllegalStateException("An evaluation is already running");
+        }
+        try {
+            return IndexEvaluation.compare(current.sample(sampleSize), queries,
+                maxConnections, efConstruction, efSearch, spillPath());
+        } finally {
+            evaluating.set(false);
+        }
+    }
+
+    private Path spillPath() {
+        return spillDirectory.isEmpty() ? null : Path.of(spillDirectory);
+    }
+
+    private void sampleRecall(String videoId, float[] vector, int limit, List<String> approximate) {
+        try {
+            Set<String> expected = new HashSet<>();
+            for (Video video : videoDao.findByVector(new DataAPIVector(vector), limit + 1)) {
+                if (!video.getVideoid().equals(videoId) && expected.size() < limit) {
+                    expected.add(video.getVideoid());
+                }
+            }
+            if (expected.isEmpty()) {
+                return;
+            }
+            long hits = approximate.stream().filter(expected::contains).count();
+            recallSummary.record((double) hits / expected.size());
+        } catch (Exception e) {
+            logger.debug("Could not sample similar video recall for {}: {}", videoId, e.getMessage());
+        }
+    }
+
+    private void apply(HnswIndex target, VideoChangedEvent event) {
+        if (event.isDeleted()) {
+            target.remove(event.getVideoId());
+        } else if (event.getVector() != null) {
+            put(target, event.getVideoId(), event.getVector());
+        }
+    }
+
+    private void put(HnswIndex target, String videoId, float[] vector) {
+        if (vector.length != dimension) {
+            logger.debug("Skipping video {} with vector dimension {}", videoId, vector.length);
+            return;
+        }
+        target.put(videoId, vector);
+    }
+
+    private double indexedVideos() {
+        HnswIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    private double estimatedBytes() {
+        HnswIndex current = index;
+        return current == null ? 0 : current.estimatedBytes();
+    }
+
+    private double mappedBytes() {
+        HnswIndex current = index;
+        return current == null ? 0 : current.mappedBytes();
+    }
+}
@@ -0,0 +1,43 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.UserDao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-time migration that rewrites user created_date values stored as strings into
+ * Data API dates. Runs in the background once the application is up; the migration is
+ * idempotent, so it can be switched off again after a successful run.
+ */
+@Service
+public class UserCreatedDateMigrationJob {
+    private static final Logger logger = LoggerFactory.getLogger(UserCreatedDateMigrationJob.class);
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${killrvideo.users.created-date-migration.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("user-created-date-migration").start(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int updated = userDao.normalizeCreatedDates();
+                logger.info("Normalized created_date on {} users in {} ms", updated, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.error("Error normalizing user created dates: {}", e.getMessage());
+            }
+        });
+    }
+}
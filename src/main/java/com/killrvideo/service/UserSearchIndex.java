@@ -0,0 +1,360 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.UserChangedEvent;
+import com.killrvideo.dao.UserDao;
+import com.killrvideo.dto.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory prefix and substring index over user names and emails for moderation search.
+ * Every field is indexed by its trigrams, which answer substring queries of three or more
+ * characters, and by its one- and two-character prefixes for shorter queries. Posting lists
+ * are sorted int arrays of user ordinals, so a query intersects a few arrays and verifies
+ * the survivors against the stored text.
+ *
+ * The index is built by a streaming scan of users when the application starts and rebuilt
+ * periodically, which also drops the ordinals left behind by profile updates. In between,
+ * {@link UserChangedEvent}s keep it current. Until the first build completes
+ * {@link #isReady()} is false and callers should fall back to the database.
+ */
+@Service
+public class UserSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    // marks prefix keys so they never collide with trigrams
+    private static final char PREFIX_MARK = '\u0001';
+
+    // separates the indexed fields in the stored text
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.users.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.users.search-index.max-candidates:20000}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private List<User> changedDuringBuild;
+    private volatile boolean ready;
+    // size of the current state, published on every write so the gauges take no lock
+    private volatile long indexBytes;
+    private volatile int indexedUsers;
+    private Timer searchTimer;
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("killrvideo.users.search.index.bytes", this, UserSearchIndex::estimatedBytes);
+        meterRegistry.gauge("killrvideo.users.search.index.users", this, UserSearchIndex::liveUsers);
+        searchTimer = meterRegistry.timer("killrvideo.users.search.duration");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuilds the index from a streaming scan of the users collection. Changes that
+     * arrive while the scan runs are replayed onto the new index before it is swapped in.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.users.search-index.initial-delay-ms:0}",
+        fixedDelayString = "${killrvideo.users.search-index.rebuild-interval-ms:86400000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        State rebuilt = new State();
+        try {
+            userDao.forEachSearchableUser(rebuilt::put);
+        } catch (Exception e) {
+            logger.error("Error building user search index: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                changedDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild.forEach(rebuilt::put);
+            changedDuringBuild = null;
+            state = rebuilt;
+            publishSize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Built user search index with {} users in {} ms",
+            rebuilt.liveCount(), System.currentTimeMillis() - start);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            state.put(user);
+            publishSize();
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(user);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds users whose first name, last name or email contains the query, case-insensitively.
+     * Fields that start with the query rank ahead of fields that only contain it.
+     *
+     * @param query The text to search for
+     * @param limit Maximum number of results
+     * @return IDs of the matching users, best matches first
+     */
+    public List<String> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return normalized.length() < GRAM
+                ? state.searchPrefix(normalized, limit)
+                : state.searchSubstring(normalized, limit, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Called under the write lock after every change to the current state.
+     */
+    private void publishSize() {
+        indexBytes = state.estimatedBytes();
+        indexedUsers = state.liveCount();
+    }
+
+    private double estimatedBytes() {
+        return indexBytes;
+    }
+
+    private double liveUsers() {
+        return indexedUsers;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One generation of the index. Not thread-safe; guarded by the enclosing lock.
+     */
+    private static final class State {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, Integer> ordinalByUserId = new HashMap<>();
+        private final BitSet replaced = new BitSet();
+        private String[] userIds = new String[1024];
+        private String[] texts = new String[1024];
+        private int size;
+        // rough object sizes: array headers 16, map entries ~48, strings ~40 plus one byte
+        // per latin-1 char; kept up to date by put() so reading it needs no walk
+        private long bytes = 16L * 2 + 8L * 1024 * 2;
+
+        /**
+         * Indexes a user under a new ordinal. A previous version of the same user is
+         * marked replaced, which keeps every posting list sorted by appending only.
+         */
+        void put(User user) {
+            Integer previous = ordinalByUserId.get(user.getUserId());
+            if (previous != null) {
+                long replacedBytes = replaced.size() / 8;
+                replaced.set(previous);
+                bytes += replaced.size() / 8 - replacedBytes;
+            } else {
+                bytes += 48 + 16;
+            }
+
+            int ordinal = size++;
+            if (ordinal == userIds.length) {
+                userIds = Arrays.copyOf(userIds, ordinal * 2);
+                texts = Arrays.copyOf(texts, ordinal * 2);
+                bytes += 8L * ordinal * 2;
+            }
+
+            String[] fields = {normalize(user.getFirstName()), normalize(user.getLastName()), normalize(user.getEmail())};
+            userIds[ordinal] = user.getUserId();
+            texts[ordinal] = String.join(String.valueOf(FIELD_SEPARATOR), fields);
+            ordinalByUserId.put(user.getUserId(), ordinal);
+            bytes += 40 + userIds[ordinal].length() + 40 + texts[ordinal].length();
+
+            Set<String> keys = new LinkedHashSet<>();
+            for (String field : fields) {
+                for (int length = 1; length < GRAM && length <= field.length(); length++) {
+                    keys.add(PREFIX_MARK + field.substring(0, length));
+                }
+                for (int i = 0; i + GRAM <= field.length(); i++) {
+                    keys.add(field.substring(i, i + GRAM));
+                }
+            }
+            for (String key : keys) {
+                Postings list = postings.get(key);
+                if (list == null) {
+                    list = new Postings();
+                    postings.put(key, list);
+                    bytes += 48 + 40 + key.length() + 32 + 16 + 4L * list.values.length;
+                }
+                bytes += list.add(ordinal);
+            }
+        }
+
+        List<String> searchPrefix(String prefix, int limit) {
+            Postings matches = postings.get(PREFIX_MARK + prefix);
+            if (matches == null) {
+                return List.of();
+            }
+            List<String> results = new ArrayList<>(limit);
+            for (int i = 0; i < matches.size && results.size() < limit; i++) {
+                int ordinal = matches.values[i];
+                if (!replaced.get(ordinal)) {
+                    results.add(userIds[ordinal]);
+                }
+            }
+            return results;
+        }
+
+        List<String> searchSubstring(String query, int limit, int maxCandidates) {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i + GRAM <= query.length(); i++) {
+                grams.add(query.substring(i, i + GRAM));
+            }
+            List<Postings> lists = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            // walk the rarest gram and probe the others
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings rarest = lists.get(0);
+
+            List<String> prefixMatches = new ArrayList<>(limit);
+            List<String> substringMatches = new ArrayList<>(limit);
+            String fieldStart = FIELD_SEPARATOR + query;
+            int examined = 0;
+            for (int i = 0; i < rarest.size && prefixMatches.size() < limit && examined < maxCandidates; i++) {
+                int ordinal = rarest.values[i];
+                if (replaced.get(ordinal) || !containsInAll(lists, ordinal)) {
+                    continue;
+                }
+                examined++;
+                String text = texts[ordinal];
+                // trigrams can match across positions, so confirm the whole query
+                if (text.startsWith(query) || text.contains(fieldStart)) {
+                    prefixMatches.add(userIds[ordinal]);
+                } else if (substringMatches.size() < limit && text.contains(query)) {
+                    substringMatches.add(userIds[ordinal]);
+                }
+            }
+
+            List<String> results = new ArrayList<>(prefixMatches);
+            for (int i = 0; i < substringMatches.size() && results.size() < limit; i++) {
+                results.add(substringMatches.get(i));
+            }
+            return results;
+        }
+
+        int liveCount() {
+            return ordinalByUserId.size();
+        }
+
+        long estimatedBytes() {
+            return bytes;
+        }
+
+        private static boolean containsInAll(List<Postings> lists, int ordinal) {
+            for (int i = 1; i < lists.size(); i++) {
+                Postings list = lists.get(i);
+                if (Arrays.binarySearch(list.values, 0, list.size, ordinal) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Growable, ascending array of user ordinals.
+     */
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        /**
+         * @return Bytes the list grew by, 0 unless the array had to be enlarged
+         */
+        long add(int ordinal) {
+            long grown = 0;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                grown = 4L * size;
+            }
+            values[size++] = ordinal;
+            return grown;
+        }
+    }
+}
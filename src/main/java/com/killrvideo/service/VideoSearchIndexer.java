@@ -0,0 +1,298 @@
+package com.killrvideo.service;
+
+import com.killrvideo.dao.SearchUnavailableException;
+import com.killrvideo.dao.VideoDao;
+import com.killrvideo.dao.VideoOutboxDao;
+import com.killrvideo.dao.VideoSearchDao;
+import com.killrvideo.dto.Video;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the OpenSearch videos index in step with the videos collection.
+ *
+ * VideoDao records every change to an indexed field in the videos outbox. This indexer
+ * drains the due entries, reads the current state of each video and writes it, or a
+ * delete, with {@code _bulk} requests capped by action count and body size. Each write
+ * carries the video's outbox version as an external version, so OpenSearch drops a write
+ * older than the document it holds: per-video ordering holds even when a retry or a
+ * second instance races with a newer change. Failed writes are retried with exponential
+ * backoff and given up after the configured attempts; a reindex repairs what was dropped.
+ * A full reindex records a change for every video and lets the drain do the writes.
+ *
+ * Lag is published as {@code killrvideo.search.outbox.lag} (change to indexed) and
+ * {@code killrvideo.search.outbox.lag.seconds} (age of the oldest pending change).
+ */
+@Service
+public class VideoSearchIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(VideoSearchIndexer.class);
+
+    @Autowired
+    private VideoOutboxDao outboxDao;
+
+    @Autowired
+    private VideoDao videoDao;
+
+    @Autowired
+    private VideoSearchDao searchDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${killrvideo.search.indexer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${killrvideo.search.indexer.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${killrvideo.search.indexer.bulk.max-actions:500}")
+    private int bulkMaxActions;
+
+    @Value("${killrvideo.search.indexer.bulk.max-bytes:2097152}")
+    private long bulkMaxBytes;
+
+    @Value("${killrvideo.search.indexer.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${killrvideo.search.indexer.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${killrvideo.search.indexer.max-retry-backoff-ms:300000}")
+    private long maxRetryBackoffMs;
+
+    private ExecutorService reindexExecutor;
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+    private volatile ReindexStatus reindexStatus = new ReindexStatus(false, null, null, 0, null);
+    private volatile Instant oldestPending;
+
+    private Timer lagTimer;
+    private DistributionSummary bulkSizeSummary;
+    private DistributionSummary bulkBytesSummary;
+
+    /**
+     * Progress of the latest full reindex.
+     *
+     * @param running Whether the reindex is still running
+     * @param startedAt When it started, or null if none has run
+     * @param finishedAt When it finished, or null while running
+     * @param queued Videos queued in the outbox so far
+     * @param error Why the reindex stopped early, or null
+     */
+    public record ReindexStatus(boolean running, Instant startedAt, Instant finishedAt,
+                                long queued, String error) {
+    }
+
+    @PostConstruct
+    public void init() {
+        reindexExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("killrvideo.search.outbox.lag.seconds", this, VideoSearchIndexer::pendingLagSeconds);
+        lagTimer = Timer.builder("killrvideo.search.outbox.lag")
+            .description("Time from a video change to its write to the search index")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        bulkSizeSummary = meterRegistry.summary("killrvideo.search.indexer.bulk.size");
+        bulkBytesSummary = meterRegistry.summary("killrvideo.search.indexer.bulk.bytes");
+
+        if (!enabled) {
+            logger.info("Video search indexer disabled");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reindexExecutor.shutdownNow();
+    }
+
+    /**
+     * Indexes one fetch of due outbox entries per run; a backlog drains over consecutive
+     * runs, with the fixed delay in between. Entries stay in the outbox while OpenSearch
+     * is unavailable.
+     */
+    @Scheduled(
+        initialDelayString = "${killrvideo.search.indexer.initial-delay-ms:10000}",
+        fixedDelayString = "${killrvideo.search.indexer.interval-ms:1000}")
+    public void drain() {
+        if (!enabled || !searchDao.isConfigured()) {
+            return;
+        }
+
+        try {
+            List<VideoOutboxDao.Entry> due = outboxDao.findDue(fetchSize);
+            oldestPending = due.stream()
+                .map(VideoOutboxDao.Entry::createdAt)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+            if (!due.isEmpty()) {
+                index(due);
+            }
+        } catch (SearchUnavailableException e) {
+            logger.warn("Search index unavailable, video changes stay in the outbox: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error draining video outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a full reindex in the background: every video in the collection is queued
+     * in the outbox, so the drain writes it with its next version. Documents of videos
+     * deleted outside this service are not removed.
+     *
+     * @return The reindex status
+     * @throws IllegalStateException if OpenSearch is not configured or a reindex is already running
+     */
+    public ReindexStatus startReindex() {
+        if (!searchDao.isConfigured()) {
+            throw new IllegalStateException("OpenSearch is not configured");
+        }
+        if (!reindexing.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reindex is already running");
+        }
+        reindexStatus = new ReindexStatus(true, Instant.now(), null, 0, null);
+        reindexExecutor.execute(this::reindex);
+        return reindexStatus;
+    }
+
+    public ReindexStatus getReindexStatus() {
+        return reindexStatus;
+    }
+
+    private void index(List<VideoOutboxDao.Entry> due) {
+        Map<String, VideoOutboxDao.Entry> entries = new HashMap<>();
+        for (VideoOutboxDao.Entry entry : due) {
+            entries.put(entry.videoId(), entry);
+        }
+        Map<String, Video> videos = new HashMap<>();
+        for (Video video : videoDao.findByVideoIds(new ArrayList<>(entries.keySet()))) {
+            videos.put(video.getVideoid(), video);
+        }
+
+        BulkBuffer buffer = new BulkBuffer((batch, failures) -> {
+            for (VideoSearchDao.IndexAction action : batch) {
+                VideoOutboxDao.Entry entry = entries.get(action.videoId());
+                String failure = failures.get(action.videoId());
+                if (failure == null) {
+                    outboxDao.acknowledge(entry.videoId(), entry.version());
+                    lagTimer.record(Duration.between(entry.createdAt(), Instant.now()));
+                    meterRegistry.counter("killrvideo.search.indexer.applied",
+                        "action", action.video() == null ? "delete" : "index").increment();
+                } else {
+                    retry(entry, failure);
+                }
+            }
+        });
+
+        for (VideoOutboxDao.Entry entry : entries.values()) {
+            Video video = videos.get(entry.videoId());
+            // a video that is gone or soft-deleted leaves the index
+            buffer.add(new VideoSearchDao.IndexAction(entry.videoId(),
+                video == null || video.isDeleted() ? null : video, entry.version()));
+        }
+        buffer.flush();
+    }
+
+    private void retry(VideoOutboxDao.Entry entry, String failure) {
+        int attempt = entry.attempts() + 1;
+        if (attempt >= maxAttempts) {
+            meterRegistry.counter("killrvideo.search.indexer.failed").increment();
+            logger.error("Giving up indexing video {} after {} attempts: {}", entry.videoId(), attempt, failure);
+            outboxDao.acknowledge(entry.videoId(), entry.version());
+            return;
+        }
+        meterRegistry.counter("killrvideo.search.indexer.retried").increment();
+        logger.warn("Indexing video {} failed on attempt {}: {}", entry.videoId(), attempt, failure);
+        long delay = Math.min(retryBackoffMs << Math.min(entry.attempts(), 20), maxRetryBackoffMs);
+        outboxDao.scheduleRetry(entry, Instant.now().plusMillis(delay));
+    }
+
+    private void reindex() {
+        Instant startedAt = reindexStatus.startedAt();
+        long[] queued = new long[1];
+        String error = null;
+
+        logger.info("Starting full search reindex");
+        try {
+            videoDao.forEachVideoId(videoId -> {
+                outboxDao.recordChange(videoId);
+                if (++queued[0] % 1000 == 0) {
+                    reindexStatus = new ReindexStatus(true, startedAt, null, queued[0], null);
+                }
+            });
+            logger.info("Queued {} videos for reindexing in {} ms", queued[0],
+                Duration.between(startedAt, Instant.now()).toMillis());
+        } catch (Exception e) {
+            error = e.getMessage();
+            logger.error("Full search reindex stopped after {} videos: {}", queued[0], error);
+        } finally {
+            reindexStatus = new ReindexStatus(false, startedAt, Instant.now(), queued[0], error);
+            reindexing.set(false);
+        }
+    }
+
+    private double pendingLagSeconds() {
+        Instant oldest = oldestPending;
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+
+    /**
+     * Collects actions into bulk requests of at most max-actions actions and max-bytes bytes.
+     */
+    private final class BulkBuffer {
+        private final List<VideoSearchDao.IndexAction> actions = new ArrayList<>();
+        private final BiConsumer<List<VideoSearchDao.IndexAction>, Map<String, String>> onApplied;
+        private long bytes;
+
+        BulkBuffer(BiConsumer<List<VideoSearchDao.IndexAction>, Map<String, String>> onApplied) {
+            this.onApplied = onApplied;
+        }
+
+        void add(VideoSearchDao.IndexAction action) {
+            int size = searchDao.estimateBytes(action);
+            if (!actions.isEmpty() && (actions.size() >= bulkMaxActions || bytes + size > bulkMaxBytes)) {
+                flush();
+            }
+            actions.add(action);
+            bytes += size;
+        }
+
+        void flush() {
+            if (actions.isEmpty()) {
+                return;
+            }
+            List<VideoSearchDao.IndexAction> batch = List.copyOf(actions);
+            bulkSizeSummary.record(batch.size());
+            bulkBytesSummary.record(bytes);
+            actions.clear();
+            bytes = 0;
+
+            onApplied.accept(batch, searchDao.bulk(batch));
+        }
+    }
+}
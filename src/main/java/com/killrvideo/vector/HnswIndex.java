@@ -0,0 +1,457 @@
+package com.killrvideo.vector;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour search by
+ * cosine similarity. Vectors are normalized on insert, so similarity is a dot product.
+ *
+ * Vectors are held in an {@link OffHeapVectorStore}. The graph is always built with
+ * full-precision scores; with a quantized encoding, searches walk the graph on the compact
+ * codes and re-rank the candidates they collect by their exact score.
+ *
+ * Inserts take an exclusive lock and searches a shared one. Replacing or removing a key
+ * only marks its node deleted: the node keeps routing searches through the graph but is
+ * never returned, and is dropped the next time the index is rebuilt.
+ */
+public class HnswIndex {
+
+    /**
+     * A search hit: the key of an indexed vector and its cosine similarity to the query.
+     */
+    public record Result(String key, float score) {
+    }
+
+    private static final Comparator<Candidate> BY_SCORE = Comparator.comparingDouble(Candidate::score);
+
+    // rough object sizes: a node with its level array, and a key map entry
+    private static final long NODE_BYTES = 64;
+    private static final long KEY_ENTRY_BYTES = 64;
+
+    private final int dimension;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final OffHeapVectorStore vectors;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeByKey = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    // heap held by the graph, kept up to date by every write so reading it needs no walk
+    private long graphBytes;
+    // graph plus the store's direct buffers, published after every write for lock-free reads
+    private volatile long residentBytes;
+
+    /**
+     * @param dimension Length of every indexed vector
+     * @param maxConnections Neighbours kept per node on the upper levels (M); level 0 keeps twice as many
+     * @param efConstruction Candidate list size while inserting; higher builds a better graph, slower
+     */
+    public HnswIndex(int dimension, int maxConnections, int efConstruction) {
+        this(dimension, maxConnections, efConstruction, VectorEncoding.FLOAT, null);
+    }
+
+    /**
+     * @param dimension Length of every indexed vector
+     * @param maxConnections Neighbours kept per node on the upper levels (M); level 0 keeps twice as many
+     * @param efConstruction Candidate list size while inserting; higher builds a better graph, slower
+     * @param encoding How vectors are encoded for scoring during searches
+     * @param spillDirectory Directory for memory-mapped full-precision vectors, or null
+     * @see OffHeapVectorStore
+     */
+    public HnswIndex(int dimension, int maxConnections, int efConstruction,
+                     VectorEncoding encoding, Path spillDirectory) {
+        this.dimension = dimension;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnections * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxConnections);
+        this.vectors = new OffHeapVectorStore(dimension, encoding, spillDirectory);
+    }
+
+    /**
+     * Adds a vector, replacing any vector previously indexed under the same key.
+     */
+    public void put(String key, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + ", got " + vector.length);
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodeByKey.remove(key);
+            if (previous != null) {
+                nodes.get(previous).deleted = true;
+            } else {
+                graphBytes += KEY_ENTRY_BYTES;
+            }
+
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            int id = vectors.add(normalized);
+            Node node = new Node(key, level);
+            nodes.add(node);
+            nodeByKey.put(key, id);
+            graphBytes += NODE_BYTES + (level + 1L) * IntList.INITIAL_BYTES;
+
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+
+            Scorer exact = other -> vectors.dot(other, normalized);
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(exact, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                PriorityQueue<Candidate> found = searchLayer(exact, current, efConstruction, l);
+                List<Candidate> closest = closestFirst(found);
+                for (Candidate neighbour : selectNeighbours(closest, l == 0 ? maxConnectionsLevel0 : maxConnections)) {
+                    graphBytes += node.neighbours[l].add(neighbour.node);
+                    connect(neighbour.node, id, l);
+                }
+                current = closest.get(0).node;
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = id;
+            }
+        } finally {
+            residentBytes = graphBytes + vectors.residentBytes();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a key from search results.
+     */
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer id = nodeByKey.remove(key);
+            if (id != null) {
+                nodes.get(id).deleted = true;
+                graphBytes -= KEY_ENTRY_BYTES;
+                residentBytes = graphBytes + vectors.residentBytes();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the normalized vector indexed under a key, or null.
+     */
+    public float[] get(String key) {
+        lock.readLock().lock();
+        try {
+            Integer id = nodeByKey.get(key);
+            return id == null ? null : vectors.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the indexed vectors most similar to a query.
+     *
+     * @param query The query vector; need not be normalized
+     * @param k Number of results
+     * @param ef Candidate list size; at least k, higher improves recall at some cost
+     * @param excludeKey A key to leave out of the results, or null
+     * @return Up to k results, most similar first
+     */
+    public List<Result> search(float[] query, int k, int ef, String excludeKey) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            OffHeapVectorStore.Query prepared = vectors.prepare(normalized);
+            Scorer approximate = node -> vectors.approximateDot(node, prepared);
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(approximate, current, l);
+            }
+            // the excluded key and deleted nodes occupy candidate slots, so widen the search a little
+            PriorityQueue<Candidate> found = searchLayer(approximate, current, Math.max(ef, k + 1), 0);
+            if (vectors.encoding() != VectorEncoding.FLOAT) {
+                PriorityQueue<Candidate> rescored = new PriorityQueue<>(found.size(), BY_SCORE);
+                for (Candidate candidate : found) {
+                    rescored.add(new Candidate(candidate.node, vectors.dot(candidate.node, normalized)));
+                }
+                found = rescored;
+            }
+            List<Candidate> closest = closestFirst(found);
+
+            List<Result> results = new ArrayList<>(k);
+            for (Candidate candidate : closest) {
+                Node node = nodes.get(candidate.node);
+                if (node.deleted || node.key.equals(excludeKey)) {
+                    continue;
+                }
+                results.add(new Result(node.key, candidate.score));
+                if (results.size() == k) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public VectorEncoding encoding() {
+        return vectors.encoding();
+    }
+
+    /**
+     * Returns up to a given number of indexed vectors, spread evenly over the index.
+     */
+    public Map<String, float[]> sample(int max) {
+        lock.readLock().lock();
+        try {
+            Map<String, float[]> sample = new HashMap<>();
+            int step = Math.max(1, nodeByKey.size() / Math.max(1, max));
+            int seen = 0;
+            for (Map.Entry<String, Integer> entry : nodeByKey.entrySet()) {
+                if (seen++ % step == 0 && sample.size() < max) {
+                    sample.put(entry.getKey(), vectors.get(entry.getValue()));
+                }
+            }
+            return sample;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate memory held in RAM: the graph on the heap plus the store's direct buffers.
+     * Maintained as the index changes, so reading it is constant-time and takes no lock.
+     */
+    public long estimatedBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Bytes of full-precision vectors kept in memory-mapped files rather than RAM.
+     */
+    public long mappedBytes() {
+        lock.readLock().lock();
+        try {
+            return vectors.mappedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int greedyClosest(Scorer scorer, int start, int level) {
+        int current = start;
+        float currentScore = scorer.score(current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            IntList neighbours = nodes.get(current).neighbours[level];
+            for (int i = 0; i < neighbours.size; i++) {
+                int candidate = neighbours.values[i];
+                float score = scorer.score(candidate);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one level. Returns a min-heap of the ef closest nodes found.
+     */
+    private PriorityQueue<Candidate> searchLayer(Scorer scorer, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(BY_SCORE.reversed());
+        PriorityQueue<Candidate> found = new PriorityQueue<>(BY_SCORE);
+
+        Candidate first = new Candidate(start, scorer.score(start));
+        visited.set(start);
+        toVisit.add(first);
+        found.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (found.size() >= ef && closest.score < found.peek().score) {
+                break;
+            }
+            IntList neighbours = nodes.get(closest.node).neighbours[level];
+            for (int i = 0; i < neighbours.size; i++) {
+                int neighbour = neighbours.values[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = scorer.score(neighbour);
+                if (found.size() < ef || score > found.peek().score) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    toVisit.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds a back-link, pruning the neighbour's list to its closest links when it overflows.
+     */
+    private void connect(int from, int to, int level) {
+        Node node = nodes.get(from);
+        IntList links = node.neighbours[level];
+        graphBytes += links.add(to);
+        int limit = level == 0 ? maxConnectionsLevel0 : maxConnections;
+        if (links.size <= limit) {
+            return;
+        }
+
+        float[] vector = vectors.get(from);
+        List<Candidate> scored = new ArrayList<>(links.size);
+        for (int i = 0; i < links.size; i++) {
+            scored.add(new Candidate(links.values[i], vectors.dot(links.values[i], vector)));
+        }
+        scored.sort(BY_SCORE.reversed());
+        links.size = 0;
+        for (Candidate kept : selectNeighbours(scored, limit)) {
+            graphBytes += links.add(kept.node);
+        }
+    }
+
+    /**
+     * The HNSW neighbour heuristic: walking candidates closest first, keep one only if it is
+     * closer to the base node than to every neighbour already kept. Links then point in
+     * different directions, which keeps clusters connected to each other instead of
+     * spending every link inside the nearest cluster.
+     *
+     * @param candidates Candidates with their similarity to the base node, closest first
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        List<float[]> selectedVectors = new ArrayList<>(limit);
+        for (Candidate candidate : candidates) {
+            if (selected.size() == limit) {
+                break;
+            }
+            float[] vector = vectors.get(candidate.node);
+            boolean diverse = true;
+            for (float[] kept : selectedVectors) {
+                if (dot(vector, kept) > candidate.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+                selectedVectors.add(vector);
+            }
+        }
+        return selected;
+    }
+
+    private static List<Candidate> closestFirst(PriorityQueue<Candidate> found) {
+        List<Candidate> sorted = new ArrayList<>(found);
+        sorted.sort(BY_SCORE.reversed());
+        return sorted;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        return VectorKernels.dot(a, b);
+    }
+
+    private interface Scorer {
+        float score(int node);
+    }
+
+    private record Candidate(int node, float score) {
+    }
+
+    private static final class Node {
+        private final String key;
+        private final IntList[] neighbours;
+        private boolean deleted;
+
+        Node(String key, int level) {
+            this.key = key;
+            this.neighbours = new IntList[level + 1];
+            for (int l = 0; l <= level; l++) {
+                neighbours[l] = new IntList();
+            }
+        }
+    }
+
+    private static final class IntList {
+        // rough object size: list and array headers plus the initial eight slots
+        static final long INITIAL_BYTES = 32 + 4 * 8;
+
+        private int[] values = new int[8];
+        private int size;
+
+        /**
+         * @return Bytes the list grew by, 0 unless the array had to be enlarged
+         */
+        long add(int value) {
+            long grown = 0;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                grown = 4L * size;
+            }
+            values[size++] = value;
+            return grown;
+        }
+    }
+}
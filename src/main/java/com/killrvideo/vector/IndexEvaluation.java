@@ -0,0 +1,121 @@
+package com.killrvideo.vector;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the vector encodings on one set of vectors: each encoding gets its own
+ * {@link HnswIndex}, and is measured for memory, recall@10 against an exact scan, and
+ * single-threaded queries per second.
+ */
+public final class IndexEvaluation {
+
+    private static final int K = 10;
+
+    /**
+     * Measurements for one encoding.
+     *
+     * @param residentBytes Graph and direct memory held in RAM
+     * @param mappedBytes Full-precision vectors in memory-mapped files
+     */
+    public record Report(VectorEncoding encoding, int vectors, long residentBytes, long mappedBytes,
+                         double recallAt10, double queriesPerSecond, long buildMillis) {
+    }
+
+    private IndexEvaluation() {
+    }
+
+    /**
+     * @param vectors The vectors to index, by key
+     * @param queries How many of the vectors to use as queries
+     * @param maxConnections HNSW links per node
+     * @param efConstruction HNSW candidate list size while building
+     * @param efSearch HNSW candidate list size while searching
+     * @param spillDirectory Directory for memory-mapped full-precision vectors, or null
+     * @return One report per encoding
+     */
+    public static List<Report> compare(Map<String, float[]> vectors, int queries,
+                                       int maxConnections, int efConstruction, int efSearch,
+                                       Path spillDirectory) {
+        List<String> keys = new ArrayList<>(vectors.keySet());
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        int dimension = vectors.get(keys.get(0)).length;
+        List<String> queryKeys = keys.subList(0, Math.min(queries, keys.size()));
+
+        List<Set<String>> expected = new ArrayList<>(queryKeys.size());
+        for (String queryKey : queryKeys) {
+            expected.add(exactNeighbours(vectors, queryKey));
+        }
+
+        List<Report> reports = new ArrayList<>();
+        for (VectorEncoding encoding : VectorEncoding.values()) {
+            long buildStart = System.nanoTime();
+            HnswIndex index = new HnswIndex(dimension, maxConnections, efConstruction, encoding, spillDirectory);
+            for (String key : keys) {
+                index.put(key, vectors.get(key));
+            }
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            long hits = 0;
+            long possible = 0;
+            long searchStart = System.nanoTime();
+            for (int i = 0; i < queryKeys.size(); i++) {
+                String queryKey = queryKeys.get(i);
+                for (HnswIndex.Result result : index.search(vectors.get(queryKey), K, efSearch, queryKey)) {
+                    if (expected.get(i).contains(result.key())) {
+                        hits++;
+                    }
+                }
+                possible += expected.get(i).size();
+            }
+            double seconds = (System.nanoTime() - searchStart) / 1e9;
+
+            reports.add(new Report(encoding, keys.size(), index.estimatedBytes(), index.mappedBytes(),
+                possible == 0 ? 1 : (double) hits / possible,
+                seconds == 0 ? 0 : queryKeys.size() / seconds,
+                buildMillis));
+        }
+        return reports;
+    }
+
+    private static Set<String> exactNeighbours(Map<String, float[]> vectors, String queryKey) {
+        float[] query = vectors.get(queryKey);
+        String[] keys = new String[K];
+        double[] scores = new double[K];
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+
+        for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+            if (entry.getKey().equals(queryKey)) {
+                continue;
+            }
+            double score = VectorKernels.cosine(query, entry.getValue());
+            // insertion into a small sorted array beats a heap for k = 10
+            int i = K - 1;
+            if (score <= scores[i]) {
+                continue;
+            }
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            keys[i] = entry.getKey();
+        }
+
+        Set<String> neighbours = new HashSet<>();
+        for (String key : keys) {
+            if (key != null) {
+                neighbours.add(key);
+            }
+        }
+        return neighbours;
+    }
+}
@@ -0,0 +1,17 @@
+package com.killrvideo.vector;
+
+/**
+ * Similarity loops behind {@link VectorKernels}, over the first {@code length} elements.
+ */
+interface Kernels {
+
+    float dot(float[] a, float[] b, int length);
+
+    float squaredDistance(float[] a, float[] b, int length);
+
+    float cosine(float[] a, float[] b, int length);
+
+    float dot(byte[] a, float[] b, int length);
+
+    String description();
+}
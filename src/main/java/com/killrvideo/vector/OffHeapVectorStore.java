@@ -0,0 +1,219 @@
+package com.killrvideo.vector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, ordinal-addressed vector storage outside the Java heap. Vectors live in
+ * fixed-size segments of contiguous direct buffers, so a million vectors add a few hundred
+ * objects to the heap rather than a million arrays.
+ *
+ * With {@link VectorEncoding#INT8} or {@link VectorEncoding#BINARY}, searches score the
+ * compact codes and the full-precision floats are only read to re-rank the final
+ * candidates. The floats can then be kept in memory-mapped files under a spill directory,
+ * leaving it to the OS to page in the few that re-ranking touches.
+ *
+ * Not thread-safe; callers guard it with their own lock.
+ */
+public class OffHeapVectorStore {
+
+    private static final int SEGMENT_VECTORS = 4096;
+
+    private final int dimension;
+    private final VectorEncoding encoding;
+    private final Path spillDirectory;
+    private final int floatBytes;
+    private final int codeBytes;
+    private final List<FloatBuffer> floatSegments = new ArrayList<>();
+    private final List<ByteBuffer> codeSegments = new ArrayList<>();
+    private int size;
+
+    /**
+     * A query prepared for scoring against the encoded vectors.
+     */
+    public static final class Query {
+        private final float[] values;
+        private final long[] bits;
+
+        private Query(float[] values, long[] bits) {
+            this.values = values;
+            this.bits = bits;
+        }
+    }
+
+    /**
+     * @param dimension Length of every stored vector
+     * @param encoding How vectors are encoded for scoring
+     * @param spillDirectory Directory for memory-mapped full-precision floats, or null to keep
+     *        them in direct memory; ignored for {@link VectorEncoding#FLOAT}, where the floats
+     *        are what every search scans
+     */
+    public OffHeapVectorStore(int dimension, VectorEncoding encoding, Path spillDirectory) {
+        this.dimension = dimension;
+        this.encoding = encoding;
+        this.spillDirectory = encoding == VectorEncoding.FLOAT ? null : spillDirectory;
+        this.floatBytes = dimension * Float.BYTES;
+        this.codeBytes = switch (encoding) {
+            case FLOAT -> 0;
+            case INT8 -> Float.BYTES + dimension;
+            case BINARY -> Long.BYTES * ((dimension + 63) / 64);
+        };
+    }
+
+    /**
+     * Appends a vector.
+     *
+     * @return The ordinal of the stored vector
+     */
+    public int add(float[] vector) {
+        int ordinal = size;
+        int slot = ordinal % SEGMENT_VECTORS;
+        if (slot == 0) {
+            floatSegments.add(allocateFloats());
+            if (codeBytes > 0) {
+                codeSegments.add(ByteBuffer.allocateDirect(SEGMENT_VECTORS * codeBytes).order(ByteOrder.nativeOrder()));
+            }
+        }
+
+        floatSegments.get(ordinal / SEGMENT_VECTORS).put(slot * dimension, vector, 0, dimension);
+        if (codeBytes > 0) {
+            encode(vector, codeSegments.get(ordinal / SEGMENT_VECTORS), slot * codeBytes);
+        }
+        size++;
+        return ordinal;
+    }
+
+    /**
+     * Copies a stored vector at full precision.
+     */
+    public float[] get(int ordinal) {
+        float[] vector = new float[dimension];
+        floatSegments.get(ordinal / SEGMENT_VECTORS).get((ordinal % SEGMENT_VECTORS) * dimension, vector);
+        return vector;
+    }
+
+    /**
+     * Full-precision dot product between a stored vector and a query.
+     */
+    public float dot(int ordinal, float[] query) {
+        return VectorKernels.dot(floatSegments.get(ordinal / SEGMENT_VECTORS), (ordinal % SEGMENT_VECTORS) * dimension, query);
+    }
+
+    /**
+     * Prepares a normalized query for {@link #approximateDot}.
+     */
+    public Query prepare(float[] query) {
+        if (encoding != VectorEncoding.BINARY) {
+            return new Query(query, null);
+        }
+        long[] bits = new long[(dimension + 63) / 64];
+        for (int i = 0; i < dimension; i++) {
+            if (query[i] > 0) {
+                bits[i >> 6] |= 1L << i;
+            }
+        }
+        return new Query(query, bits);
+    }
+
+    /**
+     * Estimates the dot product between a stored vector and a prepared query from the
+     * encoded vector alone. Exact for {@link VectorEncoding#FLOAT}.
+     */
+    public float approximateDot(int ordinal, Query query) {
+        if (encoding == VectorEncoding.FLOAT) {
+            return dot(ordinal, query.values);
+        }
+        ByteBuffer codes = codeSegments.get(ordinal / SEGMENT_VECTORS);
+        int offset = (ordinal % SEGMENT_VECTORS) * codeBytes;
+        if (encoding == VectorEncoding.INT8) {
+            // asymmetric: the query stays in floats, only the stored side is quantized
+            return codes.getFloat(offset) * VectorKernels.dot(codes, offset + Float.BYTES, query.values);
+        }
+        int differing = 0;
+        for (int i = 0; i < query.bits.length; i++) {
+            differing += Long.bitCount(codes.getLong(offset + i * Long.BYTES) ^ query.bits[i]);
+        }
+        // map the share of agreeing signs onto the cosine range
+        return 1 - 2f * differing / dimension;
+    }
+
+    public VectorEncoding encoding() {
+        return encoding;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of direct memory held by codes, and by floats unless they are memory-mapped.
+     */
+    public long residentBytes() {
+        long bytes = (long) codeSegments.size() * SEGMENT_VECTORS * codeBytes;
+        return spillDirectory == null ? bytes + floatSegmentBytes() : bytes;
+    }
+
+    /**
+     * Bytes of full-precision floats in memory-mapped files, paged in by the OS on demand.
+     */
+    public long mappedBytes() {
+        return spillDirectory == null ? 0 : floatSegmentBytes();
+    }
+
+    private long floatSegmentBytes() {
+        return (long) floatSegments.size() * SEGMENT_VECTORS * floatBytes;
+    }
+
+    private void encode(float[] vector, ByteBuffer codes, int offset) {
+        if (encoding == VectorEncoding.INT8) {
+            float max = 0;
+            for (float value : vector) {
+                max = Math.max(max, Math.abs(value));
+            }
+            float scale = max == 0 ? 1 : max / 127;
+            codes.putFloat(offset, scale);
+            for (int i = 0; i < dimension; i++) {
+                codes.put(offset + Float.BYTES + i, (byte) Math.round(vector[i] / scale));
+            }
+            return;
+        }
+        long word = 0;
+        for (int i = 0; i < dimension; i++) {
+            if (vector[i] > 0) {
+                word |= 1L << i;
+            }
+            if ((i & 63) == 63 || i == dimension - 1) {
+                codes.putLong(offset + (i >> 6) * Long.BYTES, word);
+                word = 0;
+            }
+        }
+    }
+
+    private FloatBuffer allocateFloats() {
+        int bytes = SEGMENT_VECTORS * floatBytes;
+        if (spillDirectory == null) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        try {
+            Files.createDirectories(spillDirectory);
+            Path file = Files.createTempFile(spillDirectory, "vectors-", ".f32");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder());
+                // the mapping outlives the file name, so nothing is left behind if the process dies
+                Files.delete(file);
+                return mapped.asFloatBuffer();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map vector segment in " + spillDirectory, e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.killrvideo.vector;
+
+/**
+ * Plain loops, used when the Vector API module is not available.
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public float dot(float[] a, float[] b, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredDistance(float[] a, float[] b, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float difference = a[i] - b[i];
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b, int length) {
+        float dot = 0;
+        float normA = 0;
+        float normB = 0;
+        for (int i = 0; i < length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return VectorKernels.cosine(dot, normA, normB);
+    }
+
+    @Override
+    public float dot(byte[] a, float[] b, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String description() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,13 @@
+package com.killrvideo.vector;
+
+/**
+ * How an {@link OffHeapVectorStore} encodes the vectors it scans during a search.
+ */
+public enum VectorEncoding {
+    /** Full-precision floats, four bytes per dimension. Scores are exact. */
+    FLOAT,
+    /** One signed byte per dimension plus a per-vector scale, about a quarter of the size. */
+    INT8,
+    /** One sign bit per dimension, compared by Hamming distance; a thirty-second of the size. */
+    BINARY
+}
@@ -0,0 +1,123 @@
+package com.killrvideo.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Similarity kernels for dot product, cosine and Euclidean distance, over float arrays and
+ * over vectors stored in direct buffers.
+ *
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector} the loops use the
+ * Vector API (SIMD lanes with fused multiply-add); otherwise they fall back to plain scalar
+ * code with identical results up to float rounding. Buffer variants bulk-copy the vector
+ * into a per-thread scratch array first, which is a memcpy and lets both paths share the
+ * array loops.
+ */
+public final class VectorKernels {
+
+    private static final Kernels KERNELS = select();
+
+    private static final ThreadLocal<float[]> FLOAT_SCRATCH = ThreadLocal.withInitial(() -> new float[1024]);
+    private static final ThreadLocal<byte[]> BYTE_SCRATCH = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Describes the implementation in use, such as {@code simd(256-bit)} or {@code scalar}.
+     */
+    public static String implementation() {
+        return KERNELS.description();
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkLengths(a.length, b.length);
+        return KERNELS.dot(a, b, a.length);
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        checkLengths(a.length, b.length);
+        return KERNELS.cosine(a, b, a.length);
+    }
+
+    /**
+     * Euclidean (L2) distance.
+     */
+    public static float l2(float[] a, float[] b) {
+        return (float) Math.sqrt(squaredL2(a, b));
+    }
+
+    /**
+     * Squared Euclidean distance, which ranks identically to {@link #l2} without the square root.
+     */
+    public static float squaredL2(float[] a, float[] b) {
+        checkLengths(a.length, b.length);
+        return KERNELS.squaredDistance(a, b, a.length);
+    }
+
+    /**
+     * Dot product of a query with the vector stored at a float index of a buffer.
+     */
+    public static float dot(FloatBuffer segment, int index, float[] b) {
+        return KERNELS.dot(load(segment, index, b.length), b, b.length);
+    }
+
+    public static float cosine(FloatBuffer segment, int index, float[] b) {
+        return KERNELS.cosine(load(segment, index, b.length), b, b.length);
+    }
+
+    public static float l2(FloatBuffer segment, int index, float[] b) {
+        return (float) Math.sqrt(squaredL2(segment, index, b));
+    }
+
+    public static float squaredL2(FloatBuffer segment, int index, float[] b) {
+        return KERNELS.squaredDistance(load(segment, index, b.length), b, b.length);
+    }
+
+    /**
+     * Dot product of a query with signed bytes stored at a byte offset of a buffer, such as
+     * int8-quantized codes; the caller applies the quantization scale.
+     */
+    public static float dot(ByteBuffer segment, int offset, float[] b) {
+        byte[] scratch = BYTE_SCRATCH.get();
+        if (scratch.length < b.length) {
+            scratch = new byte[b.length];
+            BYTE_SCRATCH.set(scratch);
+        }
+        segment.get(offset, scratch, 0, b.length);
+        return KERNELS.dot(scratch, b, b.length);
+    }
+
+    static float cosine(float dot, float normA, float normB) {
+        float denominator = (float) Math.sqrt((double) normA * normB);
+        return denominator == 0 ? 0 : dot / denominator;
+    }
+
+    private static float[] load(FloatBuffer segment, int index, int length) {
+        float[] scratch = FLOAT_SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new float[length];
+            FLOAT_SCRATCH.set(scratch);
+        }
+        segment.get(index, scratch, 0, length);
+        return scratch;
+    }
+
+    private static void checkLengths(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("Vector lengths differ: " + a + " and " + b);
+        }
+    }
+
+    private static Kernels select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded reflectively so this class never links against the incubator module
+                return (Kernels) Class.forName("com.killrvideo.vector.SimdKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the scalar loops
+            }
+        }
+        return new ScalarKernels();
+    }
+}
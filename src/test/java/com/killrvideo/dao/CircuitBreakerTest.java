@@ -0,0 +1,101 @@
+package com.killrvideo.dao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void staysClosedBelowTheFailureThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 3, 60000, meterRegistry);
+
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void successResetsTheConsecutiveFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 3, 60000, meterRegistry);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtTheThresholdAndRefusesCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 3, 60000, meterRegistry);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(meterRegistry.counter("killrvideo.circuit.opened", "name", "test").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("killrvideo.circuit.rejected", "name", "test").count()).isEqualTo(2);
+        assertThat(meterRegistry.get("killrvideo.circuit.state").tag("name", "test").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void letsOneTrialCallThroughAfterTheOpenPeriod() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 1, 0, meterRegistry);
+        breaker.onFailure();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 1, 0, meterRegistry);
+        breaker.onFailure();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 3, 0, meterRegistry);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(meterRegistry.counter("killrvideo.circuit.opened", "name", "test").count()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker("test", false, 1, 60000, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.killrvideo.dao;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.killrvideo.dto.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping one stored user document to a {@link User}, for both created_date
+ * encodings. {@code entity} is the typed path through {@link UserEntity} and
+ * {@link FlexibleInstantDeserializer}; {@code document} is the previous path, which read
+ * the document as a map and tried {@code Instant.parse} first, paying for a thrown
+ * exception whenever the date was not a string.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main UserMappingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMappingBenchmark {
+    private static final TypeReference<Map<String, Object>> DOCUMENT = new TypeReference<>() {};
+
+    @Param({"string", "date"})
+    private String createdDate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        Instant created = Instant.parse("2024-03-01T12:34:56.789Z");
+        String date = createdDate.equals("string")
+            ? "\"" + created + "\""
+            : "{\"$date\":" + created.toEpochMilli() + "}";
+        json = ("{\"_id\":\"5f0c7a1e-9f3b-4c52-8e7d-0a1b2c3d4e5f\","
+            + "\"userid\":\"5f0c7a1e-9f3b-4c52-8e7d-0a1b2c3d4e5f\","
+            + "\"firstname\":\"Ada\",\"lastname\":\"Lovelace\","
+            + "\"email\":\"ada@example.com\","
+            + "\"hashed_password\":\"$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5y1bM2JBh1.w9c8h8F1n3yK\","
+            + "\"created_date\":" + date + ","
+            + "\"roles\":\"USER\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public User entity() throws Exception {
+        return mapper.readValue(json, UserEntity.class).toUser();
+    }
+
+    @Benchmark
+    public User document() throws Exception {
+        return fromDocument(mapper.readValue(json, DOCUMENT));
+    }
+
+    // the mapping UserDao used before UserEntity
+    private static User fromDocument(Map<String, Object> document) {
+        Instant createdAt;
+        try {
+            createdAt = Instant.parse((String) document.get("created_date"));
+        } catch (RuntimeException e) {
+            Object date = document.get("created_date");
+            createdAt = date instanceof Map<?, ?> wrapped && wrapped.get("$date") instanceof Number millis
+                ? Instant.ofEpochMilli(millis.longValue())
+                : null;
+        }
+        return new User(
+            (String) document.get("userid"),
+            (String) document.get("firstname"),
+            (String) document.get("lastname"),
+            (String) document.get("email"),
+            (String) document.get("hashed_password"),
+            createdAt,
+            (String) document.get("roles"));
+    }
+}
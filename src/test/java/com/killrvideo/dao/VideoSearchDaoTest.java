@@ -0,0 +1,174 @@
+package com.killrvideo.dao;
+
+import com.killrvideo.config.OpenSearchConfig;
+import com.killrvideo.config.OpenSearchProperties;
+import com.killrvideo.dto.Video;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch.OpenSearchAsyncClient;
+import org.opensearch.client.transport.OpenSearchTransport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exercises the timeout and circuit breaker around OpenSearch calls against a local stub
+ * server, through the same transport configuration the application uses.
+ */
+class VideoSearchDaoTest {
+
+    private static final String SEARCH_RESPONSE = """
+        {"took":1,"timed_out":false,
+         "_shards":{"total":1,"successful":1,"skipped":0,"failed":0},
+         "hits":{"total":{"value":1,"relation":"eq"},"max_score":1.0,
+           "hits":[{"_index":"videos","_id":"v1","_score":1.0,"_source":{"videoid":"v1","name":"Cats"}}]}}
+        """;
+
+    // generous enough for the client's first request, which loads and initializes the mapper
+    private static final long REQUEST_TIMEOUT_MS = 1000;
+    private static final long SLOW_RESPONSE_MS = 3000;
+    private static final int FAILURE_THRESHOLD = 2;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long responseDelayMs;
+    private volatile int responseStatus = 200;
+
+    private HttpServer server;
+    private OpenSearchTransport transport;
+    private VideoSearchDao searchDao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::respond);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        OpenSearchProperties properties = new OpenSearchProperties();
+        properties.setHost(server.getAddress().getHostString());
+        properties.setPort(server.getAddress().getPort());
+        properties.setScheme("http");
+        properties.getTimeouts().setRequestMs(REQUEST_TIMEOUT_MS);
+        properties.getCircuitBreaker().setFailureThreshold(FAILURE_THRESHOLD);
+        properties.getCircuitBreaker().setOpenMs(60000);
+
+        transport = new OpenSearchConfig().openSearchTransport(properties);
+        searchDao = new VideoSearchDao(Optional.of(new OpenSearchAsyncClient(transport)), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test
+    void returnsHitsWithinTheTimeout() {
+        List<Video> videos = searchDao.searchVideosAsync("cats", 10).join();
+
+        assertThat(videos).extracting(Video::getVideoid).containsExactly("v1");
+        assertThat(searchDao.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(timerCount("search", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void failsWithSearchUnavailableWhenTheRequestTimesOut() {
+        responseDelayMs = SLOW_RESPONSE_MS;
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> searchDao.searchVideosAsync("cats", 10).join())
+            .isInstanceOf(CompletionException.class)
+            .cause()
+            .isInstanceOf(SearchUnavailableException.class)
+            .hasRootCauseInstanceOf(TimeoutException.class);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(SLOW_RESPONSE_MS);
+        assertThat(timerCount("search", "timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void opensTheCircuitAfterConsecutiveTimeoutsAndFailsFast() {
+        responseDelayMs = SLOW_RESPONSE_MS;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> searchDao.searchVideosAsync("cats", 10).join())
+                .hasCauseInstanceOf(SearchUnavailableException.class);
+        }
+        assertThat(searchDao.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        int requestsBefore = requests.get();
+        assertThatThrownBy(() -> searchDao.searchVideosAsync("cats", 10).join())
+            .hasCauseInstanceOf(SearchUnavailableException.class)
+            .hasMessageContaining("circuit is open");
+        assertThat(requests.get()).isEqualTo(requestsBefore);
+    }
+
+    @Test
+    void serverErrorsCountAgainstTheCircuit() {
+        responseStatus = 503;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> searchDao.searchVideosAsync("cats", 10).join())
+                .hasCauseInstanceOf(SearchUnavailableException.class);
+        }
+
+        assertThat(searchDao.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(timerCount("search", "error")).isEqualTo(FAILURE_THRESHOLD);
+    }
+
+    @Test
+    void blockingCallsSurfaceSearchUnavailable() {
+        responseDelayMs = SLOW_RESPONSE_MS;
+
+        assertThatThrownBy(() -> searchDao.searchVideosPage("cats", 10, null))
+            .isInstanceOf(SearchUnavailableException.class);
+    }
+
+    private long timerCount(String operation, String outcome) {
+        return meterRegistry.get("killrvideo.opensearch.requests")
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .timer()
+            .count();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (responseDelayMs > 0) {
+                Thread.sleep(responseDelayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = (responseStatus == 200 ? SEARCH_RESPONSE : "{\"error\":\"unavailable\",\"status\":503}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(responseStatus, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException e) {
+            // the client gave up on a delayed response
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.killrvideo.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link AuthTokenFilter} per request: a token seen before (served from the
+ * verified token cache), a token not seen before (one parse with the prebuilt parser),
+ * and the previous path that built a key and parser and verified every token twice.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main AuthTokenFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+    private static final String SECRET = "bXktc3VwZXItc2VjcmV0LWtleS1mb3Ita2lsbHJ2aWRlby1qd3QtdG9rZW5zLTIwMjUtcmVmcmVzaAo";
+
+    // far more distinct tokens than the verified cache holds, so nearly every one is parsed
+    private static final int DISTINCT_TOKENS = 4096;
+    private static final int VERIFIED_CACHE_SIZE = 64;
+
+    private AuthTokenFilter filter;
+    private String repeatToken;
+    private String[] newTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // the filter logs every request at debug, which would dominate the measurement
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        JwtVerifier verifier = new JwtVerifier();
+        ReflectionTestUtils.setField(verifier, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(verifier, "verifiedCacheMaxSize", (long) VERIFIED_CACHE_SIZE);
+        verifier.init();
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtVerifier", verifier);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "jwtVerifier", verifier);
+        ReflectionTestUtils.setField(filter, "tokenRevocationChecker", new TokenRevocationChecker(false, 60, 1000));
+
+        newTokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            UserDetailsImpl user = new UserDetailsImpl("user-" + i, "user" + i + "@example.com", null,
+                List.of(new SimpleGrantedAuthority("USER")));
+            newTokens[i] = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+        repeatToken = newTokens[0];
+    }
+
+    @Benchmark
+    public Object filterRepeatToken() throws Exception {
+        return filter(repeatToken);
+    }
+
+    @Benchmark
+    public Object filterNewToken() throws Exception {
+        next = (next + 1) % DISTINCT_TOKENS;
+        return filter(newTokens[next]);
+    }
+
+    @Benchmark
+    public Object previousDoubleVerify() {
+        // what the filter did before: validate, then parse again for the subject
+        String token = repeatToken;
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+            .parseSignedClaims(token).getPayload();
+        return claims.getSubject();
+    }
+
+    private Object filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
@@ -0,0 +1,119 @@
+package com.killrvideo.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import com.killrvideo.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of {@link RateLimitFilter}: a request that matches no policy,
+ * one from a client already tracked, one from a rotating set of clients, and one client
+ * hammered from four threads so the bucket CAS is contended. Capacity is high enough
+ * that nothing is rejected, so the allowed path is what is measured.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main RateLimitFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+    private static final int CLIENTS = 10_000;
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest[] clientRequests;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setName("comments");
+        policy.setMethod("POST");
+        policy.setPath("/api/v1/videos/*/comments");
+        policy.setCapacity(Integer.MAX_VALUE);
+        policy.setRefillPerSecond(1_000_000_000);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "properties", properties);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.init();
+
+        clientRequests = new MockHttpServletRequest[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clientRequests[i] = request("POST", "/api/v1/videos/v1/comments", "10.0." + (i >> 8) + "." + (i & 0xff));
+        }
+    }
+
+    /**
+     * Each thread rotates through its own slice of the clients.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Object unmatchedPath() throws Exception {
+        return filter(request("GET", "/api/v1/videos/latest", "10.0.0.1"));
+    }
+
+    @Benchmark
+    public Object trackedClient() throws Exception {
+        return filter(request("POST", "/api/v1/videos/v1/comments", "10.0.0.1"));
+    }
+
+    @Benchmark
+    public Object manyClients(Cursor cursor) throws Exception {
+        cursor.next = (cursor.next + 1) % CLIENTS;
+        return filter(clientRequests[cursor.next]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object contendedClient() throws Exception {
+        return filter(request("POST", "/api/v1/videos/v1/comments", "10.0.0.1"));
+    }
+
+    private Object filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
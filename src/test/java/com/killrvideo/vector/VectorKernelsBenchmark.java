@@ -0,0 +1,100 @@
+package com.killrvideo.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the similarity kernels at the embedding sizes in use, against the scalar
+ * loops they replace. The forked JVM enables {@code jdk.incubator.vector}, so the
+ * {@link VectorKernels} results are the SIMD path; {@code VectorKernels.implementation()}
+ * is printed at setup to confirm it.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) org.openjdk.jmh.Main VectorKernelsBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorKernelsBenchmark {
+
+    @Param({"384", "768"})
+    private int dimension;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+    private float[] a;
+    private float[] b;
+    private FloatBuffer segment;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        a = randomVector(random);
+        b = randomVector(random);
+        segment = ByteBuffer.allocateDirect(dimension * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        segment.put(0, a);
+        System.out.println("Kernels: " + VectorKernels.implementation());
+    }
+
+    @Benchmark
+    public float cosine() {
+        return VectorKernels.cosine(a, b);
+    }
+
+    @Benchmark
+    public float cosineScalar() {
+        return scalar.cosine(a, b, dimension);
+    }
+
+    @Benchmark
+    public float dot() {
+        return VectorKernels.dot(a, b);
+    }
+
+    @Benchmark
+    public float dotScalar() {
+        return scalar.dot(a, b, dimension);
+    }
+
+    @Benchmark
+    public float squaredL2() {
+        return VectorKernels.squaredL2(a, b);
+    }
+
+    @Benchmark
+    public float squaredL2Scalar() {
+        return scalar.squaredDistance(a, b, dimension);
+    }
+
+    @Benchmark
+    public float cosineSegment() {
+        return VectorKernels.cosine(segment, 0, b);
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}